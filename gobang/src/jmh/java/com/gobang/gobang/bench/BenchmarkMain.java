@@ -0,0 +1,23 @@
+package com.gobang.gobang.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口 - 与 JMH 自带的入口参数相同，默认附加GC分析器，
+ * 报告中的 gc.alloc.rate.norm 即每次调用分配的字节数
+ *
+ * 用法: mvn -P bench package && java -jar target/benchmarks.jar [JMH参数]
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.Board;
+import com.gobang.gobang.Stone;
+
+/**
+ * 基准测试用的固定局面，黑白交替落子，黑先
+ * 局面固定不变，不同版本之间的测量结果可以直接比较
+ */
+public final class BenchmarkPositions {
+    public static final String OPENING = "opening";
+    public static final String MIDGAME = "midgame";
+    public static final String TACTICAL = "tactical";
+
+    // 开局：天元附近几手，候选点少，棋型简单
+    private static final int[][] OPENING_MOVES = {
+        {7, 7}, {7, 8}, {8, 7}, {6, 6}
+    };
+
+    // 中局：双方棋子纠缠，候选点多，是搜索最耗时的阶段
+    private static final int[][] MIDGAME_MOVES = {
+        {7, 7}, {7, 8}, {8, 8}, {6, 6}, {8, 6}, {8, 7}, {9, 7}, {6, 9},
+        {6, 7}, {10, 6}, {5, 8}, {9, 9}
+    };
+
+    // 战术局面：双方都有活三和冲四，着法排序和威胁搜索影响最大
+    private static final int[][] TACTICAL_MOVES = {
+        {7, 7}, {8, 8}, {7, 9}, {6, 8}, {8, 9}, {9, 8}, {10, 8}, {7, 8},
+        {5, 8}, {6, 9}, {6, 7}
+    };
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * 按名称创建局面，名称为 OPENING、MIDGAME、TACTICAL 之一
+     */
+    public static Board create(String name) {
+        int[][] moves = moves(name);
+        Board board = new Board();
+        for (int i = 0; i < moves.length; i++) {
+            board.placeStone(moves[i][0], moves[i][1], i % 2 == 0 ? Stone.BLACK : Stone.WHITE);
+        }
+        return board;
+    }
+
+    /**
+     * 局面中轮到走棋的一方
+     */
+    public static Stone sideToMove(String name) {
+        return moves(name).length % 2 == 0 ? Stone.BLACK : Stone.WHITE;
+    }
+
+    private static int[][] moves(String name) {
+        switch (name) {
+            case OPENING: return OPENING_MOVES;
+            case MIDGAME: return MIDGAME_MOVES;
+            case TACTICAL: return TACTICAL_MOVES;
+            default: throw new IllegalArgumentException("未知的测试局面: " + name);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.BitBoard;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.Stone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 胜负判断基准 - 对局面上每个格子调用一次 checkWin / getWinningLine
+ * 得分为每微秒完成的判断次数
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private static final int CELLS = 15 * 15;
+
+    @Param({BenchmarkPositions.MIDGAME, BenchmarkPositions.TACTICAL})
+    public String position;
+
+    private Board board;
+    private BitBoard bitBoard;
+    private Stone[] stones;
+
+    @Setup
+    public void createBoard() {
+        board = BenchmarkPositions.create(position);
+        bitBoard = BitBoard.of(board);
+        // 按格子上的棋子判断，空格按黑棋判断
+        stones = new Stone[CELLS];
+        Stone[][] grid = board.getGrid();
+        for (int cell = 0; cell < CELLS; cell++) {
+            Stone stone = grid[cell / 15][cell % 15];
+            stones[cell] = stone == Stone.EMPTY ? Stone.BLACK : stone;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void boardCheckWin(Blackhole blackhole) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            blackhole.consume(board.checkWin(cell / 15, cell % 15, stones[cell]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void bitBoardCheckWin(Blackhole blackhole) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            blackhole.consume(bitBoard.checkWin(cell / 15, cell % 15, stones[cell]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void getWinningLine(Blackhole blackhole) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            List<int[]> line = board.getWinningLine(cell / 15, cell % 15, stones[cell]);
+            blackhole.consume(line);
+        }
+    }
+}
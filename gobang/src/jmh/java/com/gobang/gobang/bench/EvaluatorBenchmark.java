@@ -0,0 +1,76 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.BitBoard;
+import com.gobang.gobang.Evaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 局面评估基准 - 整盘重新评估，以及搜索中实际使用的落子/提子增量更新
+ * 带 Swar 后缀的方法在开启按位并行预筛选(-Dgobang.evaluator=swar)的独立进程中运行，与默认的逐子查表对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    private static final String SWAR = "-Dgobang.evaluator=swar";
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.TACTICAL})
+    public String position;
+
+    private BitBoard board;
+    private Evaluator evaluator;
+    private int emptyCell;
+
+    @Setup
+    public void createBoard() {
+        board = BitBoard.of(BenchmarkPositions.create(position));
+        evaluator = new Evaluator(board);
+        // 取天元右侧第一个空格做增量更新
+        emptyCell = board.getCellCount() / 2;
+        while (!board.isEmpty(emptyCell)) {
+            emptyCell++;
+        }
+    }
+
+    @Benchmark
+    public int fullEvaluate() {
+        return Evaluator.evaluate(board, BitBoard.BLACK);
+    }
+
+    @Benchmark
+    public int incrementalUpdate() {
+        board.place(emptyCell, BitBoard.WHITE);
+        evaluator.update(emptyCell);
+        int score = evaluator.score(BitBoard.BLACK);
+        board.remove(emptyCell);
+        evaluator.update(emptyCell);
+        return score;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SWAR)
+    public int fullEvaluateSwar() {
+        return fullEvaluate();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SWAR)
+    public int incrementalUpdateSwar() {
+        return incrementalUpdate();
+    }
+}
@@ -0,0 +1,76 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.AIPlayer;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.Move;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI搜索基准 - 单线程搜索固定局面到固定深度
+ * avgt 模式的得分即达到该深度所需的时间，thrpt 模式下 nodes 计数器即每秒节点数
+ * 每次调用前清空置换表并固定随机种子，保证每次搜索的节点完全相同
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final long SEED = 20240601L;
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.TACTICAL})
+    public String position;
+
+    @Param({"4"})
+    public int depth;
+
+    private AIPlayer player;
+    private Board board;
+
+    /**
+     * 搜索的节点数，吞吐量模式下 JMH 按测量时间换算为节点/秒
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+    }
+
+    @Setup(Level.Trial)
+    public void createPlayer() {
+        board = BenchmarkPositions.create(position);
+        player = new AIPlayer("bench", BenchmarkPositions.sideToMove(position));
+        player.setMaxDepth(depth);
+        player.setVerbose(false); // 每步的打印不计入测量时间和分配
+        // 只受深度限制，测量的是达到固定深度的时间
+        player.setTimeBudget(TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPlayer() {
+        player.newGame();
+        player.setRandomSeed(SEED);
+    }
+
+    @Benchmark
+    public Move timeToDepth(Counters counters) {
+        Move move = player.getMove(board);
+        counters.nodes += player.getLastNodes();
+        return move;
+    }
+}
@@ -1,6 +1,13 @@
 package com.gobang.gobang;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * AI玩家类 - 实现基于评分系统的AI决策
@@ -15,20 +22,284 @@ public class AIPlayer implements Player {
     private static final int BLACK = 1;
     private static final int WHITE = 2;
     
-    // 评分表 - 用于评估不同棋型的价值
-    private static final int[][] SCORE_TABLE = {
-        {0, 10, 100, 1000, 10000, 100000},  // 自己的棋型分数
-        {0, 5, 50, 500, 5000, 50000}        // 对手的棋型分数
-    };
+    // 置换表：默认2^19个桶，共2^20个条目(16MB)，同一局内多次思考共用
+    private static final int TT_BUCKET_BITS = 19;
+    private final TranspositionTable transpositionTable;
+    
+    // 叶节点评估缓存，条目数与置换表的桶数相同，跨步保留，换评估权重或新开一局时清空
+    private final EvaluationCache evaluationCache;
+    
+    // 各难度的最大搜索深度和每步思考时间(毫秒)
+    private static final int[] DIFFICULTY_DEPTH = {2, 4, 10};
+    private static final long[] DIFFICULTY_TIME = {500, 1500, 3000};
+    
+    // 正式搜索前的威胁空间搜索：连续冲四和连续活三的最大步数及节点上限
+    private static final int VCF_DEPTH = 12;
+    private static final int VCT_DEPTH = 5;
+    private static final long THREAT_NODES = 20000;
+    
+    // 后台思考时最多考虑的对手应着数
+    private static final int PONDER_REPLIES = 8;
+    
+    // 评估权重文件，可用系统属性 gobang.weights 指定，文件不存在时使用默认权重
+    private static final Path WEIGHTS_FILE = Path.of(System.getProperty("gobang.weights", "gobang.weights"));
+    private static volatile EvaluationWeights defaultWeights;
+    
+    private int maxDepth;
+    private long timeBudgetMillis;
+    private long nodeBudget; // 0 表示不限制节点数
+    
+    // 搜索线程数，大于1时其余线程作为辅助线程共享置换表并行搜索
+    // 线程池由 poolLock 保护而不是 this：持有 this 的 stopPondering 会等待后台思考线程，
+    // 后台思考线程取线程池时不能再等待 this
+    private final Object poolLock = new Object();
+    private int threads = 1;
+    private ExecutorService helperPool;
+    
+    private final Random random = new Random();
+    
+    // 后台思考单独使用的随机数，不消耗 random，getMove 的结果与后台思考进行了多久无关
+    private final Random ponderRandom = new Random();
+    
+    // 评估权重，默认为启动时从权重文件读入的权重
+    private EvaluationWeights evaluationWeights = defaultWeights();
+    
+    // 开局库，多个 AIPlayer 可以共用同一个
+    private OpeningBook openingBook;
+    
+    // 后台思考：落子后在对手思考期间搜索对手可能的应着
+    private boolean ponderEnabled;
+    private Thread ponderThread; // 由 this 保护，与 getMove 相同
+    private volatile SearchWorker.Control ponderControl;
+    private volatile boolean ponderStopped;
+    private long ponderHash;
+    private final Map<Integer, SearchResult> ponderResults = new HashMap<>();
+    
+    // 上一次思考的统计
+    private SearchStatistics lastStatistics = new SearchStatistics(SearchStatistics.Source.SEARCH);
+    private boolean lastPonderHit;
+    
+    // 关闭后 getMove 不再打印每步的思考信息，大量对局时避免输出刷屏
+    private boolean verbose = true;
+    
+    /**
+     * 一次思考的结果
+     */
+    private static final class SearchResult {
+        final int cell;
+        final int score;
+        final int depth;
+        final String threat; // 由威胁空间搜索找到时为胜法名称，否则为 null
+        final SearchStatistics statistics;
+        long elapsedNanos; // 后台思考时在这个应着上累计花费的时间
+        
+        SearchResult(int cell, int score, int depth, String threat, SearchStatistics statistics) {
+            this.cell = cell;
+            this.score = score;
+            this.depth = depth;
+            this.threat = threat;
+            this.statistics = statistics;
+            statistics.setCompletedDepth(depth);
+        }
+        
+        /**
+         * 已经搜到最大深度或找到胜负，再搜索也不会改变结果
+         */
+        boolean isFinal(int maxDepth) {
+            return threat != null || depth >= maxDepth || Math.abs(score) >= SearchWorker.WIN_THRESHOLD;
+        }
+    }
     
     public AIPlayer(String name, Stone stone) {
+        this(name, stone, TT_BUCKET_BITS);
+    }
+    
+    /**
+     * @param ttBucketBits 置换表桶数量的二进制位数，置换表占用 2^(ttBucketBits+5) 字节，评估缓存为其一半，
+     *                     同时进行很多局时用较小的置换表控制每局的内存
+     */
+    public AIPlayer(String name, Stone stone, int ttBucketBits) {
         this.name = name;
         this.stone = stone;
-        this.difficulty = 2; // 默认中级难度
+        this.transpositionTable = new TranspositionTable(ttBucketBits);
+        this.evaluationCache = new EvaluationCache(ttBucketBits);
+        setDifficulty(2); // 默认中级难度
     }
     
+    /**
+     * 设置难度，同时把搜索深度和思考时间重置为该难度的默认值
+     */
     public void setDifficulty(int difficulty) {
         this.difficulty = Math.max(1, Math.min(3, difficulty));
+        this.maxDepth = DIFFICULTY_DEPTH[this.difficulty - 1];
+        this.timeBudgetMillis = DIFFICULTY_TIME[this.difficulty - 1];
+        this.nodeBudget = 0;
+    }
+    
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+    
+    /**
+     * 每步思考时间上限，到时返回最后一轮完整搜索的结果
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = Math.max(1, millis);
+    }
+    
+    /**
+     * 每步搜索节点数上限，0 表示不限制
+     */
+    public void setNodeBudget(long nodes) {
+        this.nodeBudget = Math.max(0, nodes);
+    }
+    
+    /**
+     * 固定随机种子，之后根节点着法的打乱顺序可以复现，用于基准测试和对局复盘
+     * 单线程搜索时，相同局面、相同种子和相同的深度限制会得到相同的结果
+     */
+    public void setRandomSeed(long seed) {
+        random.setSeed(seed);
+        ponderRandom.setSeed(~seed);
+    }
+    
+    /**
+     * 设置评估权重，如 EvaluationTuner 调优得到的权重
+     */
+    public synchronized void setEvaluationWeights(EvaluationWeights weights) {
+        stopPondering();
+        this.evaluationWeights = weights;
+        evaluationCache.clear();
+    }
+    
+    public EvaluationWeights getEvaluationWeights() {
+        return evaluationWeights;
+    }
+    
+    /**
+     * 权重文件中的权重，只在第一次创建 AIPlayer 时读取；文件不存在或无法读取时为默认权重
+     */
+    public static EvaluationWeights defaultWeights() {
+        EvaluationWeights weights = defaultWeights;
+        if (weights == null) {
+            synchronized (AIPlayer.class) {
+                weights = defaultWeights;
+                if (weights == null) {
+                    weights = EvaluationWeights.DEFAULT;
+                    if (Files.exists(WEIGHTS_FILE)) {
+                        try {
+                            weights = EvaluationWeights.load(WEIGHTS_FILE);
+                        } catch (IOException e) {
+                            System.err.println("无法读取评估权重 " + WEIGHTS_FILE + ": " + e.getMessage());
+                        }
+                    }
+                    defaultWeights = weights;
+                }
+            }
+        }
+        return weights;
+    }
+    
+    /**
+     * 设置开局库，局面在库中时直接走库中的着法，传入 null 关闭
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+    
+    /**
+     * 开启后，每次落子后在后台搜索对手可能的应着，直到下一次 getMove 或 stopPondering
+     * 对手走出后台思考过的应着时，后台花费的时间计入这一步的思考时间，置换表也已预热
+     */
+    public void setPondering(boolean enabled) {
+        this.ponderEnabled = enabled;
+        if (!enabled) {
+            stopPondering();
+        }
+    }
+    
+    public boolean isPondering() {
+        return ponderEnabled;
+    }
+    
+    /**
+     * 是否在每步思考后打印统计信息，默认开启
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+    
+    /**
+     * 上一次思考中第一个着法就剪枝的比例
+     */
+    public double getLastFirstMoveCutoffRate() {
+        return lastStatistics.getFirstMoveCutoffRate();
+    }
+    
+    /**
+     * 上一次思考中叶节点评估缓存的命中率，没有查询时为0
+     */
+    public double getLastCacheHitRate() {
+        return lastStatistics.getCacheHitRate();
+    }
+    
+    /**
+     * 上一次思考的完整统计，包括置换表命中、按着法序号的剪枝分布和耗时
+     */
+    public SearchStatistics getLastStatistics() {
+        return lastStatistics;
+    }
+    
+    /**
+     * 设置搜索线程数，主线程之外的辅助线程从线程池中取得
+     */
+    public synchronized void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads != this.threads) {
+            stopPondering();
+        }
+        synchronized (poolLock) {
+            if (threads != this.threads && helperPool != null) {
+                helperPool.shutdownNow();
+                helperPool = null;
+            }
+            this.threads = threads;
+        }
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    /**
+     * 上一次思考所有线程搜索的节点总数
+     */
+    public long getLastNodes() {
+        return lastStatistics.getNodes();
+    }
+    
+    /**
+     * 上一次思考完整搜完的深度
+     */
+    public int getLastDepth() {
+        return lastStatistics.getCompletedDepth();
+    }
+    
+    /**
+     * 上一次思考是否直接使用了后台思考的结果
+     */
+    public boolean isLastPonderHit() {
+        return lastPonderHit;
+    }
+    
+    /**
+     * 开始新的一局，停止后台思考并清空上一局的置换表和评估缓存
+     */
+    public synchronized void newGame() {
+        stopPondering();
+        ponderResults.clear();
+        transpositionTable.clear();
+        evaluationCache.clear();
     }
     
     @Override
@@ -43,250 +314,307 @@ public class AIPlayer implements Player {
     
     @Override
     public Move getMove(Board board) {
+        return getMove(board, new Cancellation());
+    }
+    
+    /**
+     * 可取消的思考：令牌到期时与思考时间用完相同，被取消时立即停止且不再开始后台思考
+     * 同一个 AIPlayer 同时只进行一次思考，被放弃的思考退出前后来的调用会等待
+     */
+    @Override
+    public synchronized Move getMove(Board board, Cancellation cancellation) {
         
-        Stone[][] grid = board.getGrid();
-        int size = board.getSize();
-        Stone opponentStone = (stone == Stone.BLACK) ? Stone.WHITE : Stone.BLACK;
+        // 在位棋盘副本上搜索，不修改传入的棋盘
+        BitBoard bitBoard = BitBoard.of(board);
+        int size = bitBoard.getSize();
         
-        // 获取所有可能的落子位置
-        List<Move> possibleMoves = new ArrayList<>();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (grid[i][j] == Stone.EMPTY) {
-                    // 只考虑周围有棋子的位置，提高效率
-                    if (hasAdjacentStone(grid, i, j, 2)) {
-                        possibleMoves.add(new Move(i, j));
-                    }
-                }
-            }
-        }
+        long startTime = System.nanoTime();
+        SearchEvent event = new SearchEvent();
+        event.begin();
         
-        // 根据难度决定搜索深度
-        int depth = (difficulty == 1) ? 2 : (difficulty == 2) ? 3 : 4;
+        // 对手走出了后台思考过的应着时，已花的时间计入本步的思考时间：
+        // 搜完或时间已用完时直接使用后台结果，否则用剩余时间在预热过的置换表上继续搜索
+        stopPondering();
+        long budgetNanos = timeBudgetMillis * 1_000_000L;
+        SearchResult result = ponderedResult(bitBoard);
+        lastPonderHit = result != null && (result.isFinal(maxDepth) || result.elapsedNanos >= budgetNanos);
         
-        // 使用Alpha-Beta剪枝搜索最佳位置
-        int bestScore = Integer.MIN_VALUE;
-        Move bestMove = null;
-        long startTime = System.currentTimeMillis();
+        // 开局库中有这个局面时不必搜索
+        int bookMove = openingBook != null ? openingBook.lookup(bitBoard) : OpeningBook.NO_MOVE;
+        if (bookMove != OpeningBook.NO_MOVE) {
+            lastPonderHit = false;
+            result = new SearchResult(bookMove, 0, 0, "开局库着法", new SearchStatistics(SearchStatistics.Source.BOOK));
+        } else if (!lastPonderHit) {
+            long remaining = budgetNanos - (result != null ? result.elapsedNanos : 0);
+            transpositionTable.newSearch();
+            result = think(bitBoard,
+                new SearchWorker.Control(System.nanoTime() + remaining, nodeBudget, cancellation), maxDepth, random);
+        }
+        ponderResults.clear();
         
-        // 打乱顺序，增加随机性
-        Collections.shuffle(possibleMoves);
+        Move bestMove = new Move(result.cell / size, result.cell % size);
+        SearchStatistics statistics = result.statistics;
+        if (lastPonderHit) {
+            statistics.setSource(SearchStatistics.Source.PONDER);
+        }
+        statistics.setElapsedNanos(System.nanoTime() - startTime);
+        lastStatistics = statistics;
+        event.commit(name, statistics);
+        EngineMetrics.publish(statistics);
         
-        for (Move move : possibleMoves) {
-            // 模拟落子
-            grid[move.getRow()][move.getCol()] = stone;
-            int score = minimax(grid, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, false, opponentStone);
-            // 撤销落子
-            grid[move.getRow()][move.getCol()] = Stone.EMPTY;
-            
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = move;
+        if (verbose) {
+            double seconds = statistics.getElapsedNanos() / 1e9;
+            String ponderNote = lastPonderHit ? " (后台思考命中)" : "";
+            if (result.threat != null) {
+                System.out.printf("AI思考时间: %.2f秒, 找到%s, 节点数: %d, 选择位置: [%d, %d]%s\n",
+                    seconds, result.threat, statistics.getNodes(),
+                    bestMove.getRow(), bestMove.getCol(), ponderNote);
+            } else {
+                System.out.printf("AI思考时间: %.2f秒, 搜索深度: %d, 节点数: %d, 首着剪枝率: %.1f%%, 评估缓存命中率: %.1f%%, 选择位置: [%d, %d], 评分为: %d%s\n",
+                    seconds, result.depth, statistics.getNodes(), statistics.getFirstMoveCutoffRate() * 100,
+                    statistics.getCacheHitRate() * 100, bestMove.getRow(), bestMove.getCol(), result.score, ponderNote);
             }
         }
         
-        long endTime = System.currentTimeMillis();
-        System.out.printf("AI思考时间: %.2f秒, 选择位置: [%d, %d], 评分为: %d\n", 
-            (endTime - startTime) / 1000.0, bestMove.getRow(), bestMove.getCol(), bestScore);
-        
+        if (ponderEnabled && !cancellation.isCancelRequested()) {
+            startPondering(bitBoard, result.cell);
+        }
         return bestMove;
     }
     
-    private int minimax(Stone[][] grid, int depth, int alpha, int beta, boolean isMaximizing, Stone currentPlayer) {
-        // 到达搜索深度或游戏结束
-        if (depth == 0) {
-            return evaluateBoard(grid, stone);
+    /**
+     * 停止后台思考并等待后台线程退出，悔棋、重新开始时也应调用
+     * 与 getMove 使用同一个锁，正在进行的思考结束(或被取消)后才执行，
+     * 不会漏掉思考结束时刚开始的后台思考
+     */
+    public synchronized void stopPondering() {
+        Thread thread = ponderThread;
+        if (thread == null) {
+            return;
+        }
+        ponderStopped = true;
+        ponderControl.stopped = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        ponderThread = null;
+    }
+    
+    /**
+     * 在棋盘上搜索 AI 的着法：先做威胁空间搜索，没有找到必胜时再做迭代加深的全宽度搜索
+     * random 用于打乱根节点着法，走棋和后台思考各用各的
+     */
+    private SearchResult think(BitBoard bitBoard, SearchWorker.Control control, int depthLimit, Random random) {
+        int size = bitBoard.getSize();
+        int aiColor = BitBoard.colorOf(stone);
         
-        Stone opponentStone = (currentPlayer == Stone.BLACK) ? Stone.WHITE : Stone.BLACK;
-        int bestScore = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        // 获取所有可能的落子位置，只考虑周围有棋子的位置，提高效率
+        CandidateSet candidates = new CandidateSet(bitBoard);
+        int[] possibleMoves = new int[candidates.size()];
+        for (int i = 0; i < possibleMoves.length; i++) {
+            possibleMoves[i] = candidates.get(i);
+        }
         
-        // 获取所有可能的落子位置
-        List<Move> possibleMoves = new ArrayList<>();
-        for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid.length; j++) {
-                if (grid[i][j] == Stone.EMPTY) {
-                    if (hasAdjacentStone(grid, i, j, 2)) {
-                        possibleMoves.add(new Move(i, j));
-                    }
-                }
-            }
+        // 空棋盘时下在天元
+        if (possibleMoves.length == 0) {
+            return new SearchResult(size / 2 * size + size / 2, 0, 0, null,
+                new SearchStatistics(SearchStatistics.Source.SEARCH));
         }
         
-        // 如果没有可能的移动，返回当前评估值
-        if (possibleMoves.isEmpty()) {
-            return evaluateBoard(grid, stone);
+        // 先找连续冲四，再找连续活三，找到时直接走出，不必进行全宽度搜索
+        ThreatSolver threatSolver = new ThreatSolver(bitBoard, new Evaluator(bitBoard), candidates);
+        int threatMove = threatSolver.findVcf(aiColor, VCF_DEPTH, THREAT_NODES);
+        String threatKind = "连续冲四";
+        if (threatMove == ThreatSolver.NO_MOVE) {
+            threatMove = threatSolver.findVct(aiColor, VCT_DEPTH, THREAT_NODES);
+            threatKind = "连续活三";
+        }
+        if (threatMove != ThreatSolver.NO_MOVE) {
+            SearchStatistics statistics = new SearchStatistics(SearchStatistics.Source.THREAT);
+            statistics.setNodes(threatSolver.getNodes());
+            return new SearchResult(threatMove, SearchWorker.WIN_THRESHOLD, 0, threatKind, statistics);
         }
         
-        // 按评分排序，提高剪枝效率
-        possibleMoves.sort((a, b) -> {
-            grid[a.getRow()][a.getCol()] = currentPlayer;
-            int scoreA = evaluateBoard(grid, currentPlayer);
-            grid[a.getRow()][a.getCol()] = Stone.EMPTY;
-            
-            grid[b.getRow()][b.getCol()] = currentPlayer;
-            int scoreB = evaluateBoard(grid, currentPlayer);
-            grid[b.getRow()][b.getCol()] = Stone.EMPTY;
-            
-            return scoreB - scoreA;
-        });
+        // 打乱顺序，增加随机性
+        shuffle(possibleMoves, random);
         
-        for (Move move : possibleMoves) {
-            // 模拟落子
-            grid[move.getRow()][move.getCol()] = currentPlayer;
-            
-            // 检查是否获胜
-            if (checkWin(grid, move.getRow(), move.getCol(), currentPlayer)) {
-                int score = isMaximizing ? 
-                    (100000 - depth * 100) : 
-                    (-100000 + depth * 100);
-                grid[move.getRow()][move.getCol()] = Stone.EMPTY;
-                return score;
-            }
-            
-            // 递归搜索
-            int score = minimax(grid, depth - 1, alpha, beta, !isMaximizing, opponentStone);
-            
-            // 撤销落子
-            grid[move.getRow()][move.getCol()] = Stone.EMPTY;
-            
-            // 更新最佳分数
-            if (isMaximizing) {
-                bestScore = Math.max(bestScore, score);
-                alpha = Math.max(alpha, score);
-            } else {
-                bestScore = Math.min(bestScore, score);
-                beta = Math.min(beta, score);
+        // 辅助线程各自持有棋盘副本，用不同的根节点顺序和起始深度搜索，结果通过置换表共享
+        List<SearchWorker> helpers = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService pool = helperPool();
+        for (int i = 1; i < threads; i++) {
+            SearchWorker helper = new SearchWorker(bitBoard.copy(), aiColor, transpositionTable, evaluationCache,
+                control, evaluationWeights);
+            int[] helperMoves = possibleMoves.clone();
+            shuffle(helperMoves, new Random(i));
+            int startDepth = 1 + (i & 1);
+            helpers.add(helper);
+            futures.add(pool.submit(() -> helper.search(helperMoves, startDepth, depthLimit)));
+        }
+        
+        // 使用Alpha-Beta剪枝搜索最佳位置，迭代加深直到用完预算
+        SearchWorker main = new SearchWorker(bitBoard, aiColor, transpositionTable, evaluationCache,
+            control, evaluationWeights);
+        main.search(possibleMoves, 1, depthLimit);
+        control.stopped = true;
+        
+        // 取完整搜索深度最深的结果，同深度时以主线程为准
+        SearchWorker best = main;
+        SearchStatistics statistics = new SearchStatistics(SearchStatistics.Source.SEARCH);
+        statistics.add(main);
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                continue;
+            } catch (ExecutionException e) {
+                // 辅助线程出错时只丢失它的结果，主线程的结果仍然可用
+                System.err.println("辅助搜索线程出错: " + e.getCause());
+                continue;
             }
-            
-            // Alpha-Beta剪枝
-            if (beta <= alpha) {
-                break;
+            SearchWorker helper = helpers.get(i);
+            statistics.add(helper);
+            if (helper.getCompletedDepth() > best.getCompletedDepth()) {
+                best = helper;
             }
         }
         
-        return bestScore;
+        return new SearchResult(best.getBestMove(), best.getBestScore(), best.getCompletedDepth(), null, statistics);
     }
     
-    private int evaluateBoard(Stone[][] grid, Stone aiStone) {
-        Stone opponentStone = (aiStone == Stone.BLACK) ? Stone.WHITE : Stone.BLACK;
-        int score = 0;
-        int size = grid.length;
-        
-        // 检查所有行
-        for (int i = 0; i < size; i++) {
-            score += evaluateLine(grid, i, 0, 0, 1, size, aiStone, opponentStone);
+    /**
+     * 在 AI 落子 move 之后的局面上开始后台思考
+     * 先猜对手最可能的应着(置换表中记录的最佳应着)，再按棋型挑出其余几个应着，
+     * 逐轮加深，每一轮依次搜索每个应着之后 AI 的最佳着法
+     */
+    private synchronized void startPondering(BitBoard bitBoard, int move) {
+        BitBoard ponderBoard = bitBoard.copy();
+        int aiColor = BitBoard.colorOf(stone);
+        ponderBoard.place(move, aiColor);
+        if (ponderBoard.checkWin(move, aiColor) || ponderBoard.isFull()) {
+            return;
         }
         
-        // 检查所有列
-        for (int j = 0; j < size; j++) {
-            score += evaluateLine(grid, 0, j, 1, 0, size, aiStone, opponentStone);
+        int[] replies = plausibleReplies(ponderBoard, 1 - aiColor);
+        if (replies.length == 0) {
+            return;
         }
         
-        // 检查正对角线
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i == 0 || j == 0) {
-                    int length = Math.min(size - i, size - j);
-                    score += evaluateLine(grid, i, j, 1, 1, length, aiStone, opponentStone);
-                }
-            }
-        }
+        int depthLimit = maxDepth;
+        ponderHash = ponderBoard.getHash();
+        ponderStopped = false;
+        ponderControl = new SearchWorker.Control(Long.MAX_VALUE, 0);
+        transpositionTable.newSearch();
         
-        // 检查反对角线
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i == 0 || j == size - 1) {
-                    int length = Math.min(size - i, j + 1);
-                    score += evaluateLine(grid, i, j, 1, -1, length, aiStone, opponentStone);
+        ponderThread = new Thread(() -> {
+            // 最可能的应着直接搜到最大深度，其余应着再逐轮加深
+            if (!ponderReply(ponderBoard, replies[0], depthLimit)) {
+                return;
+            }
+            for (int depth = Math.min(2, depthLimit); depth <= depthLimit; depth++) {
+                for (int i = 1; i < replies.length; i++) {
+                    if (!ponderReply(ponderBoard, replies[i], depth)) {
+                        return;
+                    }
                 }
             }
-        }
-        
-        return score;
+        }, name + "-ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
     }
     
-    private int evaluateLine(Stone[][] grid, int startRow, int startCol, int dr, int dc, int length, Stone aiStone, Stone opponentStone) {
-        int aiCount = 0;
-        int opponentCount = 0;
-        int emptyCount = 0;
-        
-        for (int i = 0; i < length; i++) {
-            int row = startRow + i * dr;
-            int col = startCol + i * dc;
-            
-            if (grid[row][col] == aiStone) {
-                aiCount++;
-            } else if (grid[row][col] == opponentStone) {
-                opponentCount++;
-            } else {
-                emptyCount++;
-            }
+    /**
+     * 在对手走 reply 之后的局面上搜索到 depth 层，结果记入 ponderResults
+     * 返回 false 表示后台思考已被停止
+     */
+    private boolean ponderReply(BitBoard ponderBoard, int reply, int depth) {
+        SearchResult previous = ponderResults.get(reply);
+        if (previous != null && previous.isFinal(depth)) {
+            return !ponderStopped;
         }
         
-        // 不能同时有AI和对手的棋子
-        if (aiCount > 0 && opponentCount > 0) {
-            return 0;
+        // 每次搜索一个新的控制对象，stopPondering 会停止当前这一个
+        SearchWorker.Control control = new SearchWorker.Control(Long.MAX_VALUE, 0);
+        ponderControl = control;
+        if (ponderStopped) {
+            return false;
         }
         
-        // 计算棋型评分
-        if (aiCount > 0) {
-            return SCORE_TABLE[0][aiCount];
-        } else if (opponentCount > 0) {
-            return -SCORE_TABLE[1][opponentCount];
+        int opponentColor = 1 - BitBoard.colorOf(stone);
+        long start = System.nanoTime();
+        ponderBoard.place(reply, opponentColor);
+        SearchResult result = think(ponderBoard, control, depth, ponderRandom);
+        ponderBoard.remove(reply);
+        
+        // 被中途停止时只保留至少完整搜完一轮的结果
+        if (result.depth > 0 || result.threat != null) {
+            result.elapsedNanos = previous != null ? previous.elapsedNanos : 0;
+            ponderResults.put(reply, result);
+        } else if (previous != null) {
+            result = previous;
         } else {
-            return 0;
+            return !ponderStopped;
         }
+        result.elapsedNanos += System.nanoTime() - start;
+        return !ponderStopped;
     }
     
-    private boolean hasAdjacentStone(Stone[][] grid, int row, int col, int distance) {
-        int size = grid.length;
-        for (int i = Math.max(0, row - distance); i <= Math.min(size - 1, row + distance); i++) {
-            for (int j = Math.max(0, col - distance); j <= Math.min(size - 1, col + distance); j++) {
-                if (grid[i][j] != Stone.EMPTY) {
-                    return true;
-                }
-            }
+    /**
+     * 后台思考中对手可能的应着：置换表记录的最佳应着在前，其余按棋型分从高到低
+     */
+    private int[] plausibleReplies(BitBoard board, int color) {
+        CandidateSet candidates = new CandidateSet(board);
+        int count = candidates.size();
+        int[] moves = new int[count];
+        int[] scores = new int[board.getCellCount()];
+        long entry = transpositionTable.probe(board.getHash());
+        int predicted = entry != 0 ? TranspositionTable.move(entry) : TranspositionTable.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int cell = candidates.get(i);
+            moves[i] = cell;
+            scores[cell] = cell == predicted ? Integer.MAX_VALUE : SearchWorker.threatScore(board, cell, color);
         }
-        return false;
+        SearchWorker.sortByScore(moves, count, scores);
+        return Arrays.copyOf(moves, Math.min(count, PONDER_REPLIES));
     }
     
-    private boolean checkWin(Stone[][] grid, int row, int col, Stone stone) {
-        int size = grid.length;
-        
-        // 方向数组：右，下，右下，右上
-        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
-        
-        for (int[] dir : directions) {
-            int count = 1;
-            int dr = dir[0];
-            int dc = dir[1];
-            
-            // 正方向
-            for (int i = 1; i < 5; i++) {
-                int r = row + i * dr;
-                int c = col + i * dc;
-                if (r < 0 || r >= size || c < 0 || c >= size || grid[r][c] != stone) {
-                    break;
-                }
-                count++;
-            }
-            
-            // 反方向
-            for (int i = 1; i < 5; i++) {
-                int r = row - i * dr;
-                int c = col - i * dc;
-                if (r < 0 || r >= size || c < 0 || c >= size || grid[r][c] != stone) {
-                    break;
-                }
-                count++;
+    /**
+     * 当前局面恰好是后台思考的局面加上对手一步应着时，返回后台对该应着的搜索结果
+     */
+    private SearchResult ponderedResult(BitBoard bitBoard) {
+        int opponentColor = 1 - BitBoard.colorOf(stone);
+        for (Map.Entry<Integer, SearchResult> entry : ponderResults.entrySet()) {
+            int reply = entry.getKey();
+            if (bitBoard.colorAt(reply) == opponentColor
+                && (bitBoard.getHash() ^ Zobrist.key(opponentColor, reply)) == ponderHash) {
+                return entry.getValue();
             }
-            
-            if (count >= 5) {
-                return true;
+        }
+        return null;
+    }
+    
+    private static void shuffle(int[] moves, Random random) {
+        for (int i = moves.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = moves[i];
+            moves[i] = moves[j];
+            moves[j] = tmp;
+        }
+    }
+    
+    private ExecutorService helperPool() {
+        synchronized (poolLock) {
+            if (helperPool == null && threads > 1) {
+                helperPool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                    Thread thread = new Thread(runnable, name + "-search");
+                    thread.setDaemon(true);
+                    return thread;
+                });
             }
+            return helperPool;
         }
-        
-        return false;
     }
-}    
\ No newline at end of file
+}
@@ -0,0 +1,325 @@
+package com.gobang.gobang;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 位棋盘 - 供AI搜索使用的紧凑棋盘表示
+ * 每种颜色一组位集(按 row * size + col 编号)，另外按行、列、正对角线、反对角线
+ * 维护每条线的位编码，胜负判断和棋型统计都只需要几次位运算
+ */
+public class BitBoard {
+    public static final int BLACK = 0;
+    public static final int WHITE = 1;
+    public static final int NONE = -1;
+
+    // 线编码两端各留出4位作为边界，保证以任意格为中心的9格窗口不越界
+    static final int PAD = 4;
+    static final int WINDOW_MASK = 0x1FF;
+
+    // 线编码最多64位，去掉两端边界后支持的最大棋盘
+    public static final int MAX_SIZE = 64 - 2 * PAD;
+
+    private final Geometry geometry;
+    private final int size;
+    private final long[][] bits;
+    private final long[][] lines;
+    private int stoneCount;
+    private long hash;
+
+    public BitBoard(int size) {
+        this.geometry = Geometry.of(size);
+        this.size = size;
+        this.bits = new long[2][(geometry.cellCount + 63) >>> 6];
+        this.lines = new long[2][geometry.lineCount];
+    }
+
+    private BitBoard(BitBoard other) {
+        this.geometry = other.geometry;
+        this.size = other.size;
+        this.bits = new long[][]{other.bits[BLACK].clone(), other.bits[WHITE].clone()};
+        this.lines = new long[][]{other.lines[BLACK].clone(), other.lines[WHITE].clone()};
+        this.stoneCount = other.stoneCount;
+        this.hash = other.hash;
+    }
+
+    /**
+     * 根据当前棋盘创建位棋盘
+     */
+    public static BitBoard of(Board board) {
+        return of(board.snapshot());
+    }
+
+    /**
+     * 根据棋盘快照创建位棋盘，可以在任意线程调用
+     */
+    public static BitBoard of(BoardSnapshot snapshot) {
+        BitBoard bitBoard = new BitBoard(snapshot.getSize());
+        snapshot.forEachStone((cell, stone) -> bitBoard.place(cell, colorOf(stone)));
+        return bitBoard;
+    }
+
+    public BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    public void clear() {
+        for (int color = BLACK; color <= WHITE; color++) {
+            Arrays.fill(bits[color], 0L);
+            Arrays.fill(lines[color], 0L);
+        }
+        stoneCount = 0;
+        hash = 0L;
+    }
+
+    public boolean placeStone(int row, int col, Stone stone) {
+        if (row < 0 || row >= size || col < 0 || col >= size || stone == Stone.EMPTY) {
+            return false;
+        }
+
+        int cell = row * size + col;
+        if (!isEmpty(cell)) {
+            return false;
+        }
+
+        place(cell, colorOf(stone));
+        return true;
+    }
+
+    /**
+     * 在空位落子，不做合法性检查
+     */
+    public void place(int cell, int color) {
+        bits[color][cell >>> 6] |= 1L << cell;
+        long[] colorLines = lines[color];
+        for (int dir = 0; dir < 4; dir++) {
+            colorLines[geometry.lineOf[dir][cell]] |= 1L << (geometry.posOf[dir][cell] + PAD);
+        }
+        stoneCount++;
+        hash ^= Zobrist.key(color, cell);
+    }
+
+    /**
+     * 移除指定位置的棋子，位置为空时不做任何事
+     */
+    public void remove(int cell) {
+        int color = colorAt(cell);
+        if (color == NONE) {
+            return;
+        }
+
+        bits[color][cell >>> 6] &= ~(1L << cell);
+        long[] colorLines = lines[color];
+        for (int dir = 0; dir < 4; dir++) {
+            colorLines[geometry.lineOf[dir][cell]] &= ~(1L << (geometry.posOf[dir][cell] + PAD));
+        }
+        stoneCount--;
+        hash ^= Zobrist.key(color, cell);
+    }
+
+    public boolean checkWin(int row, int col, Stone stone) {
+        if (row < 0 || row >= size || col < 0 || col >= size || stone == Stone.EMPTY) {
+            return false;
+        }
+        return checkWin(row * size + col, colorOf(stone));
+    }
+
+    /**
+     * 判断经过该格的四条线上是否有五连
+     * 取以该格为中心的9格窗口，窗口内任意五连都必然经过中心
+     */
+    public boolean checkWin(int cell, int color) {
+        long[] colorLines = lines[color];
+        for (int dir = 0; dir < 4; dir++) {
+            long w = (colorLines[geometry.lineOf[dir][cell]] >>> geometry.posOf[dir][cell]) & WINDOW_MASK;
+            if ((w & (w >>> 1) & (w >>> 2) & (w >>> 3) & (w >>> 4)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以该格为中心、半径为distance的方形范围内是否有棋子
+     */
+    public boolean hasAdjacentStone(int row, int col, int distance) {
+        long window = (1L << (2 * distance + 1)) - 1;
+        int shift = col - distance + PAD;
+        for (int i = Math.max(0, row - distance); i <= Math.min(size - 1, row + distance); i++) {
+            if ((((lines[BLACK][i] | lines[WHITE][i]) >>> shift) & window) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isFull() {
+        return stoneCount == geometry.cellCount;
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((bits[BLACK][cell >>> 6] | bits[WHITE][cell >>> 6]) & (1L << cell)) == 0;
+    }
+
+    public int colorAt(int cell) {
+        long mask = 1L << cell;
+        if ((bits[BLACK][cell >>> 6] & mask) != 0) {
+            return BLACK;
+        }
+        if ((bits[WHITE][cell >>> 6] & mask) != 0) {
+            return WHITE;
+        }
+        return NONE;
+    }
+
+    public Stone getStone(int row, int col) {
+        return stoneOf(colorAt(row * size + col));
+    }
+
+    /**
+     * 转换为与 Board 相同格式的二维数组(新数组，修改不会影响位棋盘)
+     */
+    public Stone[][] getGrid() {
+        Stone[][] grid = new Stone[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                grid[i][j] = getStone(i, j);
+            }
+        }
+        return grid;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return geometry.cellCount;
+    }
+
+    public int getStoneCount() {
+        return stoneCount;
+    }
+
+    /**
+     * 当前局面的Zobrist哈希，落子和提子时增量更新
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    int getLineCount() {
+        return geometry.lineCount;
+    }
+
+    /**
+     * 某种颜色在一条线上的位编码，第 pos + PAD 位对应线上第 pos 格
+     */
+    long line(int color, int lineId) {
+        return lines[color][lineId];
+    }
+
+    /**
+     * 线编码中不在棋盘上的位(两端边界以及超出该线长度的部分)
+     */
+    long wall(int lineId) {
+        return geometry.wall[lineId];
+    }
+
+    int lineOf(int dir, int cell) {
+        return geometry.lineOf[dir][cell];
+    }
+
+    int posOf(int dir, int cell) {
+        return geometry.posOf[dir][cell];
+    }
+
+    /**
+     * 线上第 pos 格的格子编号，不在棋盘上时为 NONE
+     */
+    int cellOf(int lineId, int pos) {
+        return geometry.cellOf[lineId][pos];
+    }
+
+    /**
+     * 线的方向：0 行，1 列，2 正对角线，3 反对角线
+     */
+    int dirOf(int lineId) {
+        return geometry.dirOf[lineId];
+    }
+
+    public static int colorOf(Stone stone) {
+        switch (stone) {
+            case BLACK: return BLACK;
+            case WHITE: return WHITE;
+            default: return NONE;
+        }
+    }
+
+    public static Stone stoneOf(int color) {
+        switch (color) {
+            case BLACK: return Stone.BLACK;
+            case WHITE: return Stone.WHITE;
+            default: return Stone.EMPTY;
+        }
+    }
+
+    /**
+     * 棋盘几何信息，同一尺寸的所有位棋盘共享
+     * 线编号：行 [0, size)，列 [size, 2size)，正对角线 [2size, 4size-1)，反对角线 [4size-1, 6size-2)
+     * 行和对角线上用列号作为线内位置，列上用行号
+     */
+    private static final class Geometry {
+        private static final ConcurrentHashMap<Integer, Geometry> CACHE = new ConcurrentHashMap<>();
+
+        final int cellCount;
+        final int lineCount;
+        final int[][] lineOf;
+        final int[][] posOf;
+        final long[] wall;
+        final int[][] cellOf;
+        final int[] dirOf;
+
+        private Geometry(int size) {
+            if (size < 1 || size > MAX_SIZE) {
+                throw new IllegalArgumentException("不支持的棋盘大小: " + size);
+            }
+
+            cellCount = size * size;
+            lineCount = 6 * size - 2;
+            lineOf = new int[4][cellCount];
+            posOf = new int[4][cellCount];
+            wall = new long[lineCount];
+            Arrays.fill(wall, -1L);
+            cellOf = new int[lineCount][size];
+            dirOf = new int[lineCount];
+            for (int[] cells : cellOf) {
+                Arrays.fill(cells, NONE);
+            }
+
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int cell = row * size + col;
+                    lineOf[0][cell] = row;
+                    posOf[0][cell] = col;
+                    lineOf[1][cell] = size + col;
+                    posOf[1][cell] = row;
+                    lineOf[2][cell] = 2 * size + (row - col + size - 1);
+                    posOf[2][cell] = col;
+                    lineOf[3][cell] = 4 * size - 1 + (row + col);
+                    posOf[3][cell] = col;
+
+                    for (int dir = 0; dir < 4; dir++) {
+                        wall[lineOf[dir][cell]] &= ~(1L << (posOf[dir][cell] + PAD));
+                        cellOf[lineOf[dir][cell]][posOf[dir][cell]] = cell;
+                        dirOf[lineOf[dir][cell]] = dir;
+                    }
+                }
+            }
+        }
+
+        static Geometry of(int size) {
+            return CACHE.computeIfAbsent(size, Geometry::new);
+        }
+    }
+}
@@ -5,10 +5,19 @@ import java.util.List;
 
 /**
  * 五子棋棋盘类
+ * 每格用2位(0 空，1 黑，2 白)打包存放在 long 数组中，副本和快照与原棋盘共用数组，
+ * 任何一方修改前才复制(写时复制)，因此 copy() 和 snapshot() 只需常数时间。
+ * 棋盘本身不是线程安全的，交给其他线程(搜索、渲染)时应传递副本或快照。
  */
 public class Board {
-    private Stone[][] grid;
-    private int size;
+    // 方向数组：右，下，右下，右上
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    
+    private final int size;
+    private long[] cells;
+    private boolean shared; // cells 与副本或快照共用，修改前先复制
+    private int stoneCount;
+    private BoardSnapshot snapshot; // 最近一次修改之后创建的快照
     
     public Board() {
         this(15); // 默认15x15棋盘
@@ -16,16 +25,42 @@ public class Board {
     
     public Board(int size) {
         this.size = size;
-        grid = new Stone[size][size];
-        clear();
+        this.cells = new long[BoardSnapshot.wordCount(size)];
     }
     
-    public void clear() {
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                grid[i][j] = Stone.EMPTY;
-            }
+    /**
+     * 从快照恢复出可修改的棋盘
+     */
+    public Board(BoardSnapshot snapshot) {
+        this.size = snapshot.getSize();
+        this.cells = snapshot.cells;
+        this.stoneCount = snapshot.getStoneCount();
+        this.shared = true;
+    }
+    
+    /**
+     * 复制一份独立的棋盘，之后两者互不影响
+     */
+    public Board copy() {
+        return new Board(snapshot());
+    }
+    
+    /**
+     * 当前局面的不可变快照，可以安全地交给其他线程读取
+     */
+    public BoardSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = new BoardSnapshot(size, cells, stoneCount);
+            shared = true;
         }
+        return snapshot;
+    }
+    
+    public void clear() {
+        cells = new long[cells.length];
+        shared = false;
+        stoneCount = 0;
+        snapshot = null;
     }
     
     public boolean placeStone(int row, int col, Stone stone) {
@@ -33,19 +68,31 @@ public class Board {
             return false;
         }
         
-        if (grid[row][col] != Stone.EMPTY) {
+        if (getStone(row, col) != Stone.EMPTY) {
             return false;
         }
         
-        grid[row][col] = stone;
+        set(row * size + col, stone);
+        return true;
+    }
+    
+    /**
+     * 提走一颗棋子(悔棋)，该位置为空或越界时返回 false
+     */
+    public boolean removeStone(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size || getStone(row, col) == Stone.EMPTY) {
+            return false;
+        }
+        set(row * size + col, Stone.EMPTY);
         return true;
     }
     
+    public Stone getStone(int row, int col) {
+        return BoardSnapshot.stoneAt(cells, row * size + col);
+    }
+    
     public boolean checkWin(int row, int col, Stone stone) {
-        // 方向数组：右，下，右下，右上
-        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
-        
-        for (int[] dir : directions) {
+        for (int[] dir : DIRECTIONS) {
             int count = 1;
             int dr = dir[0];
             int dc = dir[1];
@@ -54,7 +101,7 @@ public class Board {
             for (int i = 1; i < 5; i++) {
                 int r = row + i * dr;
                 int c = col + i * dc;
-                if (r < 0 || r >= size || c < 0 || c >= size || grid[r][c] != stone) {
+                if (r < 0 || r >= size || c < 0 || c >= size || getStone(r, c) != stone) {
                     break;
                 }
                 count++;
@@ -64,7 +111,7 @@ public class Board {
             for (int i = 1; i < 5; i++) {
                 int r = row - i * dr;
                 int c = col - i * dc;
-                if (r < 0 || r >= size || c < 0 || c >= size || grid[r][c] != stone) {
+                if (r < 0 || r >= size || c < 0 || c >= size || getStone(r, c) != stone) {
                     break;
                 }
                 count++;
@@ -82,10 +129,7 @@ public class Board {
      * 获取获胜的五个棋子位置
      */
     public List<int[]> getWinningLine(int row, int col, Stone stone) {
-        // 方向数组：右，下，右下，右上
-        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
-        
-        for (int[] dir : directions) {
+        for (int[] dir : DIRECTIONS) {
             List<int[]> positions = new ArrayList<>();
             positions.add(new int[]{row, col});
             
@@ -96,7 +140,7 @@ public class Board {
             for (int i = 1; i < 5; i++) {
                 int r = row + i * dr;
                 int c = col + i * dc;
-                if (r < 0 || r >= size || c < 0 || c >= size || grid[r][c] != stone) {
+                if (r < 0 || r >= size || c < 0 || c >= size || getStone(r, c) != stone) {
                     break;
                 }
                 positions.add(new int[]{r, c});
@@ -106,7 +150,7 @@ public class Board {
             for (int i = 1; i < 5; i++) {
                 int r = row - i * dr;
                 int c = col - i * dc;
-                if (r < 0 || r >= size || c < 0 || c >= size || grid[r][c] != stone) {
+                if (r < 0 || r >= size || c < 0 || c >= size || getStone(r, c) != stone) {
                     break;
                 }
                 positions.add(new int[]{r, c});
@@ -121,21 +165,35 @@ public class Board {
     }
     
     public boolean isFull() {
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (grid[i][j] == Stone.EMPTY) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return stoneCount == size * size;
     }
     
+    public int getStoneCount() {
+        return stoneCount;
+    }
+    
+    /**
+     * 转换为二维数组(新数组，修改不会影响棋盘)
+     */
     public Stone[][] getGrid() {
-        return grid;
+        return snapshot().getGrid();
     }
     
     public int getSize() {
         return size;
     }
-}    
\ No newline at end of file
+    
+    private void set(int cell, Stone stone) {
+        if (shared) {
+            cells = cells.clone();
+            shared = false;
+        }
+        snapshot = null;
+        int old = BoardSnapshot.codeAt(cells, cell);
+        int code = BoardSnapshot.codeOf(stone);
+        stoneCount += (code != 0 ? 1 : 0) - (old != 0 ? 1 : 0);
+        int shift = (cell & (BoardSnapshot.CELLS_PER_WORD - 1)) * 2;
+        int word = cell / BoardSnapshot.CELLS_PER_WORD;
+        cells[word] = (cells[word] & ~(3L << shift)) | ((long) code << shift);
+    }
+}
@@ -0,0 +1,79 @@
+package com.gobang.gobang;
+
+/**
+ * 棋盘的不可变快照 - 由 Board.snapshot() 创建，与棋盘共用打包数组，创建后内容不再改变，
+ * 可以在搜索线程和界面线程之间自由传递
+ */
+public final class BoardSnapshot {
+    static final int CELLS_PER_WORD = 32;
+
+    private static final Stone[] STONES = {Stone.EMPTY, Stone.BLACK, Stone.WHITE};
+
+    private final int size;
+    final long[] cells; // 与 Board 共用，Board 修改前会先复制，这里的内容不会再变
+    private final int stoneCount;
+
+    BoardSnapshot(int size, long[] cells, int stoneCount) {
+        this.size = size;
+        this.cells = cells;
+        this.stoneCount = stoneCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getStoneCount() {
+        return stoneCount;
+    }
+
+    public Stone getStone(int row, int col) {
+        return stoneAt(cells, row * size + col);
+    }
+
+    /**
+     * 转换为二维数组(新数组)
+     */
+    public Stone[][] getGrid() {
+        Stone[][] grid = new Stone[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                grid[i][j] = getStone(i, j);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * 依次把每颗棋子交给 visitor，按格子编号(row * size + col)从小到大，只访问有棋子的格子
+     */
+    void forEachStone(StoneVisitor visitor) {
+        for (int word = 0; word < cells.length; word++) {
+            for (long bits = cells[word]; bits != 0; ) {
+                int slot = Long.numberOfTrailingZeros(bits) >>> 1;
+                visitor.visit(word * CELLS_PER_WORD + slot, STONES[(int) (bits >>> (slot * 2)) & 3]);
+                bits &= ~(3L << (slot * 2));
+            }
+        }
+    }
+
+    interface StoneVisitor {
+        void visit(int cell, Stone stone);
+    }
+
+    static int wordCount(int size) {
+        return (size * size + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    }
+
+    static int codeAt(long[] cells, int cell) {
+        return (int) (cells[cell / CELLS_PER_WORD] >>> ((cell & (CELLS_PER_WORD - 1)) * 2)) & 3;
+    }
+
+    static Stone stoneAt(long[] cells, int cell) {
+        return STONES[codeAt(cells, cell)];
+    }
+
+    static int codeOf(Stone stone) {
+        return stone == Stone.BLACK ? 1 : stone == Stone.WHITE ? 2 : 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.gobang.gobang;
+
+/**
+ * 取消令牌 - 由发起思考的一方持有，搜索循环定期检查
+ * 超过期限与思考时间用完相同，返回最后一轮完整搜索的结果；
+ * 调用 cancel() 表示放弃这次思考，搜索立即停止，返回的着法仍然合法但没有参考价值
+ */
+public final class Cancellation {
+    private final long deadline; // System.nanoTime() 时刻，Long.MAX_VALUE 表示没有期限
+    private volatile boolean cancelled;
+
+    public Cancellation() {
+        this(Long.MAX_VALUE);
+    }
+
+    private Cancellation(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * 在 millis 毫秒后自动取消的令牌
+     */
+    public static Cancellation withTimeout(long millis) {
+        return new Cancellation(System.nanoTime() + Math.max(0, millis) * 1_000_000L);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || System.nanoTime() >= deadline;
+    }
+
+    /**
+     * 是否调用过 cancel()，不考虑期限
+     */
+    boolean isCancelRequested() {
+        return cancelled;
+    }
+
+    /**
+     * 期限对应的 System.nanoTime() 时刻，没有期限时为 Long.MAX_VALUE
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+}
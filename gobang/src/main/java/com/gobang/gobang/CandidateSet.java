@@ -0,0 +1,104 @@
+package com.gobang.gobang;
+
+import java.util.Arrays;
+
+/**
+ * 候选着法集合 - 距离已有棋子2格以内(5x5范围)的空位
+ *
+ * 每格记录周围棋子的引用计数，落子和提子时只更新5x5邻域；
+ * 候选格保存在紧凑数组中，配合反向索引做到O(1)加入和删除。
+ */
+public class CandidateSet {
+    static final int DISTANCE = 2;
+
+    private final BitBoard board;
+    private final int size;
+    private final int[] neighborCount;
+    private final int[] cells;
+    private final int[] indexOf;
+    private int count;
+
+    /**
+     * 为棋盘建立候选集合，之后棋盘的每次落子和提子都需要同步调用 place/remove
+     */
+    public CandidateSet(BitBoard board) {
+        this.board = board;
+        this.size = board.getSize();
+        this.neighborCount = new int[board.getCellCount()];
+        this.cells = new int[board.getCellCount()];
+        this.indexOf = new int[board.getCellCount()];
+        Arrays.fill(indexOf, -1);
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            if (!board.isEmpty(cell)) {
+                adjustNeighbors(cell, 1);
+            }
+        }
+    }
+
+    /**
+     * 棋盘在 cell 落子之后调用
+     */
+    public void place(int cell) {
+        delete(cell);
+        adjustNeighbors(cell, 1);
+    }
+
+    /**
+     * 棋盘在 cell 提子之后调用
+     */
+    public void remove(int cell) {
+        adjustNeighbors(cell, -1);
+        if (neighborCount[cell] > 0) {
+            add(cell);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public boolean contains(int cell) {
+        return indexOf[cell] >= 0;
+    }
+
+    private void adjustNeighbors(int cell, int delta) {
+        int row = cell / size;
+        int col = cell % size;
+        int rowEnd = Math.min(size - 1, row + DISTANCE);
+        int colStart = Math.max(0, col - DISTANCE);
+        int colEnd = Math.min(size - 1, col + DISTANCE);
+        for (int i = Math.max(0, row - DISTANCE); i <= rowEnd; i++) {
+            for (int j = colStart; j <= colEnd; j++) {
+                int neighbor = i * size + j;
+                int updated = neighborCount[neighbor] += delta;
+                if (updated == 0) {
+                    delete(neighbor);
+                } else if (updated == delta && delta > 0 && board.isEmpty(neighbor)) {
+                    add(neighbor);
+                }
+            }
+        }
+    }
+
+    private void add(int cell) {
+        if (indexOf[cell] < 0) {
+            indexOf[cell] = count;
+            cells[count++] = cell;
+        }
+    }
+
+    private void delete(int cell) {
+        int index = indexOf[cell];
+        if (index >= 0) {
+            // 用最后一个元素填补空位
+            int last = cells[--count];
+            cells[index] = last;
+            indexOf[last] = index;
+            indexOf[cell] = -1;
+        }
+    }
+}
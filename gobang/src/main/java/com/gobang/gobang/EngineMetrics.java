@@ -0,0 +1,37 @@
+package com.gobang.gobang;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 引擎指标的发布点 - AI 每走一步后把这一步的 SearchStatistics 交给所有监听器
+ * 计数在搜索线程上各自累加，这里每步只调用一次，不在搜索的热路径上
+ */
+public final class EngineMetrics {
+    private static final List<Consumer<SearchStatistics>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private EngineMetrics() {
+    }
+
+    public static void addListener(Consumer<SearchStatistics> listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Consumer<SearchStatistics> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * 通知所有监听器，监听器抛出的异常不影响走棋
+     */
+    static void publish(SearchStatistics statistics) {
+        for (Consumer<SearchStatistics> listener : LISTENERS) {
+            try {
+                listener.accept(statistics);
+            } catch (RuntimeException e) {
+                System.err.println("搜索指标监听器出错: " + e);
+            }
+        }
+    }
+}
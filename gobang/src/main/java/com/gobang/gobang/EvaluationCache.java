@@ -0,0 +1,73 @@
+package com.gobang.gobang;
+
+import java.util.Arrays;
+
+/**
+ * 叶节点评估缓存 - 按 Zobrist 哈希和走棋方缓存叶节点的评分，包括连续冲四检查的结果
+ *
+ * 静态评分由 Evaluator 增量维护，本身不需要缓存；叶节点上真正昂贵的是走棋方有冲四可能时的
+ * 连续冲四检查，同一局面经不同着法顺序到达、或在迭代加深的每一轮中都会重复做。
+ * 直接映射、总是替换，条目打包在一个 long 里，与 TranspositionTable 一样键数组中存 key ^ data，
+ * 多个搜索线程无锁共享，并发写入造成的不一致会被当作未命中。
+ */
+public class EvaluationCache {
+    public static final int MISS = Integer.MIN_VALUE;
+
+    // 数据布局：低32位评分 | 第32位有效标记，保证有效条目不为0
+    private static final long VALID = 1L << 32;
+
+    // 与局面哈希异或区分走棋方，同一局面轮到不同的一方时评分不同
+    private static final long[] PERSPECTIVE = {0x6A09E667F3BCC908L, 0xBB67AE8584CAA73BL};
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param bits 条目数的二进制位数，共 2^bits 个条目，每条16字节
+     */
+    public EvaluationCache(int bits) {
+        this.keys = new long[1 << bits];
+        this.data = new long[1 << bits];
+        this.mask = (1 << bits) - 1;
+    }
+
+    /**
+     * 局面哈希加上走棋方得到缓存键
+     */
+    static long key(long hash, int color) {
+        return hash ^ PERSPECTIVE[color];
+    }
+
+    /**
+     * 查询缓存的评分，未命中时返回 MISS
+     */
+    public int probe(long key) {
+        int index = index(key);
+        long entry = data[index];
+        if (entry != 0 && (keys[index] ^ entry) == key) {
+            return (int) entry;
+        }
+        return MISS;
+    }
+
+    public void store(long key, int score) {
+        int index = index(key);
+        long entry = (score & 0xFFFFFFFFL) | VALID;
+        keys[index] = key ^ entry;
+        data[index] = entry;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,336 @@
+package com.gobang.gobang;
+
+import com.gobang.gobang.record.GameRecordFormat;
+import com.gobang.gobang.record.GameRecordReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 离线调优评估权重 - 用棋谱中的局面和最终胜负拟合 Evaluator 的棋型分数(Texel 调优)
+ *
+ * 整盘评分是双方各棋型棋子数与权重的线性组合，用 sigmoid(K * 评分) 预测评分一方的得分(胜1 平0.5 负0)，
+ * 最小化与实际结果的均方误差。搜索中总是从 AI 一方的视角评分(己方权重给 AI 的棋子，与轮到谁走无关)，
+ * 所以每个局面从黑白双方的视角各取一个样本，而不是只从走棋方的视角取样。
+ * 先用现有权重拟合 K 并固定，使调优后的权重保持原来的量级
+ * (搜索中的胜负阈值和着法排序都依赖这个量级)，再对数空间中用 Adam 梯度下降调整权重。
+ * 每轮梯度按局面分批在所有核心上并行计算。
+ *
+ * 只从没有冲四、活四的平稳局面取样，这类局面的胜负由搜索决定，
+ * 所以只调整单子到活三的分数，冲四及以上保持原值；调整后各棋型分数仍按强弱递增。
+ *
+ * 用法: EvaluationTuner 输出文件 迭代次数 棋谱文件(.gbr)...
+ * 输出的权重文件放在工作目录下命名为 gobang.weights 时，AIPlayer 启动时自动读入
+ */
+public class EvaluationTuner {
+    private static final int PATTERNS = PatternTable.PATTERN_COUNT;
+
+    // 每个样本的特征: 评分一方各棋型棋子数，然后是另一方各棋型棋子数
+    private static final int FEATURES = 2 * PATTERNS;
+
+    // 参与调整的棋型
+    private static final int FIRST_TUNED = PatternTable.ONE;
+    private static final int LAST_TUNED = PatternTable.OPEN_THREE;
+
+    // 每局开头的若干手局面变化少，不取样
+    private static final int SKIP_PLIES = 4;
+
+    // 每个并行任务处理的局面数
+    private static final int BATCH = 1 << 14;
+
+    private static final double LEARNING_RATE = 0.02;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+
+    // 计算梯度的线程池，守护线程，不妨碍程序退出
+    private final ExecutorService pool;
+
+    // 所有局面的特征，按局面连续存放，每个局面 FEATURES 个
+    private short[] features = new short[FEATURES * 1024];
+    private float[] results = new float[1024];
+    private int positions;
+
+    public EvaluationTuner(int threads) {
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "gobang-tuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println("用法: EvaluationTuner 输出文件 迭代次数 棋谱文件(.gbr)...");
+            return;
+        }
+        Path output = Path.of(args[0]);
+        int iterations = Integer.parseInt(args[1]);
+
+        EvaluationTuner tuner = new EvaluationTuner(Runtime.getRuntime().availableProcessors());
+        for (int i = 2; i < args.length; i++) {
+            tuner.addGameRecords(Path.of(args[i]));
+        }
+        System.out.printf("共 %d 个样本(平稳局面 x 2)%n", tuner.getPositionCount());
+        if (tuner.getPositionCount() == 0) {
+            return;
+        }
+
+        EvaluationWeights start = AIPlayer.defaultWeights();
+        double scale = tuner.fitScale(start);
+        double before = tuner.error(start, scale);
+        EvaluationWeights tuned = tuner.tune(start, scale, iterations);
+        double after = tuner.error(tuned, scale);
+        System.out.printf("K = %.6f, 误差 %.6f -> %.6f%n", scale, before, after);
+        System.out.println("调优后的权重: " + tuned);
+        tuned.save(output, String.format("EvaluationTuner: %d 个样本, K = %.6f, 误差 %.6f -> %.6f",
+            tuner.getPositionCount(), scale, before, after));
+    }
+
+    public int getPositionCount() {
+        return positions;
+    }
+
+    /**
+     * 读入二进制棋谱中已分出结果的对局，取样其中的平稳局面
+     */
+    public void addGameRecords(Path path) throws IOException {
+        int[] own = new int[PATTERNS];
+        int[] opponent = new int[PATTERNS];
+        BitBoard board = null;
+        try (GameRecordReader reader = GameRecordReader.open(path)) {
+            while (reader.next()) {
+                int result = reader.getResult();
+                if (result == GameRecordFormat.RESULT_UNFINISHED || reader.getSize() > BitBoard.MAX_SIZE) {
+                    continue;
+                }
+                if (board == null || board.getSize() != reader.getSize()) {
+                    board = new BitBoard(reader.getSize());
+                } else {
+                    board.clear();
+                }
+                int color = BitBoard.BLACK;
+                for (int ply = 0; ply < reader.getMoveCount(); ply++) {
+                    int cell = reader.getMove(ply);
+                    if (!board.isEmpty(cell)) {
+                        break;
+                    }
+                    board.place(cell, color);
+                    color = 1 - color;
+                    if (ply + 1 < SKIP_PLIES) {
+                        continue;
+                    }
+
+                    // 与搜索的评分方式一致，从固定一方的视角评分，黑白双方各取一个样本
+                    Arrays.fill(own, 0);
+                    Arrays.fill(opponent, 0);
+                    Evaluator.countPatterns(board, BitBoard.BLACK, own);
+                    Evaluator.countPatterns(board, BitBoard.WHITE, opponent);
+                    if (isQuiet(own) && isQuiet(opponent)) {
+                        addPosition(own, opponent, scoreOf(result, BitBoard.BLACK));
+                        addPosition(opponent, own, scoreOf(result, BitBoard.WHITE));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isQuiet(int[] counts) {
+        return counts[PatternTable.FOUR] == 0 && counts[PatternTable.OPEN_FOUR] == 0
+            && counts[PatternTable.FIVE] == 0;
+    }
+
+    private static float scoreOf(int result, int color) {
+        if (result == GameRecordFormat.RESULT_DRAW) {
+            return 0.5f;
+        }
+        int winner = result == GameRecordFormat.RESULT_BLACK_WIN ? BitBoard.BLACK : BitBoard.WHITE;
+        return winner == color ? 1 : 0;
+    }
+
+    private void addPosition(int[] own, int[] opponent, float result) {
+        if (positions == results.length) {
+            results = Arrays.copyOf(results, positions * 2);
+            features = Arrays.copyOf(features, positions * 2 * FEATURES);
+        }
+        int base = positions * FEATURES;
+        for (int p = 0; p < PATTERNS; p++) {
+            features[base + p] = (short) Math.min(Short.MAX_VALUE, own[p]);
+            features[base + PATTERNS + p] = (short) Math.min(Short.MAX_VALUE, opponent[p]);
+        }
+        results[positions++] = result;
+    }
+
+    /**
+     * 在对数尺度上三分搜索使误差最小的 K
+     */
+    public double fitScale(EvaluationWeights weights) throws InterruptedException {
+        double low = Math.log(1e-6);
+        double high = Math.log(1);
+        for (int i = 0; i < 60; i++) {
+            double left = low + (high - low) / 3;
+            double right = high - (high - low) / 3;
+            if (error(weights, Math.exp(left)) < error(weights, Math.exp(right))) {
+                high = right;
+            } else {
+                low = left;
+            }
+        }
+        return Math.exp((low + high) / 2);
+    }
+
+    public double error(EvaluationWeights weights, double scale) throws InterruptedException {
+        return evaluate(toParameters(weights), scale, null);
+    }
+
+    /**
+     * 从 start 开始迭代 iterations 轮，K 固定为 scale
+     */
+    public EvaluationWeights tune(EvaluationWeights start, double scale, int iterations)
+            throws InterruptedException {
+        double[] weights = toParameters(start);
+        double[] logWeights = new double[FEATURES];
+        double[] momentum = new double[FEATURES];
+        double[] velocity = new double[FEATURES];
+        double[] gradient = new double[FEATURES];
+        for (int j = 0; j < FEATURES; j++) {
+            logWeights[j] = Math.log(Math.max(1, weights[j]));
+        }
+
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            double error = evaluate(weights, scale, gradient);
+            for (int j = 0; j < FEATURES; j++) {
+                if (!isTuned(j)) {
+                    continue;
+                }
+                // 对数空间中的梯度: dE/d(ln w) = dE/dw * w
+                double g = gradient[j] * weights[j];
+                momentum[j] = BETA1 * momentum[j] + (1 - BETA1) * g;
+                velocity[j] = BETA2 * velocity[j] + (1 - BETA2) * g * g;
+                double m = momentum[j] / (1 - Math.pow(BETA1, iteration));
+                double v = velocity[j] / (1 - Math.pow(BETA2, iteration));
+                logWeights[j] -= LEARNING_RATE * m / (Math.sqrt(v) + 1e-12);
+            }
+            keepOrdered(logWeights, 0);
+            keepOrdered(logWeights, PATTERNS);
+            for (int j = 0; j < FEATURES; j++) {
+                if (isTuned(j)) {
+                    weights[j] = Math.exp(logWeights[j]);
+                }
+            }
+            if (iteration % 50 == 0 || iteration == iterations) {
+                System.out.printf("第 %d 轮: 误差 %.6f%n", iteration, error);
+            }
+        }
+        return toWeights(weights);
+    }
+
+    private static boolean isTuned(int feature) {
+        int pattern = feature % PATTERNS;
+        return pattern >= FIRST_TUNED && pattern <= LAST_TUNED;
+    }
+
+    /**
+     * 保持棋型越强分数越高，且不超过固定的冲四分数
+     */
+    private static void keepOrdered(double[] logWeights, int offset) {
+        double ceiling = logWeights[offset + LAST_TUNED + 1];
+        for (int p = FIRST_TUNED; p <= LAST_TUNED; p++) {
+            double value = Math.min(logWeights[offset + p], ceiling);
+            if (p > FIRST_TUNED) {
+                value = Math.max(value, logWeights[offset + p - 1]);
+            }
+            logWeights[offset + p] = value;
+        }
+    }
+
+    /**
+     * 并行计算均方误差，gradient 不为 null 时同时计算对每个权重的梯度
+     */
+    private double evaluate(double[] weights, double scale, double[] gradient) throws InterruptedException {
+        List<Callable<double[]>> tasks = new ArrayList<>();
+        for (int start = 0; start < positions; start += BATCH) {
+            int from = start;
+            int to = Math.min(positions, start + BATCH);
+            tasks.add(() -> evaluateBatch(weights, scale, from, to, gradient != null));
+        }
+
+        // 按批次顺序累加，线程调度不影响结果
+        double error = 0;
+        if (gradient != null) {
+            Arrays.fill(gradient, 0);
+        }
+        try {
+            for (Future<double[]> future : pool.invokeAll(tasks)) {
+                double[] partial = future.get();
+                error += partial[FEATURES];
+                if (gradient != null) {
+                    for (int j = 0; j < FEATURES; j++) {
+                        gradient[j] += partial[j];
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (gradient != null) {
+            for (int j = 0; j < FEATURES; j++) {
+                gradient[j] /= positions;
+            }
+        }
+        return error / positions;
+    }
+
+    /**
+     * 一批局面的误差之和及梯度之和，结果的前 FEATURES 个为梯度，最后一个为误差
+     */
+    private double[] evaluateBatch(double[] weights, double scale, int from, int to, boolean withGradient) {
+        double[] sums = new double[FEATURES + 1];
+        for (int i = from; i < to; i++) {
+            int base = i * FEATURES;
+            double score = 0;
+            for (int p = 0; p < PATTERNS; p++) {
+                score += weights[p] * features[base + p] - weights[PATTERNS + p] * features[base + PATTERNS + p];
+            }
+            double predicted = 1 / (1 + Math.exp(-scale * score));
+            double diff = predicted - results[i];
+            sums[FEATURES] += diff * diff;
+            if (withGradient) {
+                // d(diff^2)/dw = 2 * diff * p * (1 - p) * K * 特征值，对方棋型的特征值取负
+                double common = 2 * diff * predicted * (1 - predicted) * scale;
+                for (int p = 0; p < PATTERNS; p++) {
+                    sums[p] += common * features[base + p];
+                    sums[PATTERNS + p] -= common * features[base + PATTERNS + p];
+                }
+            }
+        }
+        return sums;
+    }
+
+    private static double[] toParameters(EvaluationWeights weights) {
+        double[] parameters = new double[FEATURES];
+        for (int p = 0; p < PATTERNS; p++) {
+            parameters[p] = weights.own(p);
+            parameters[PATTERNS + p] = weights.opponent(p);
+        }
+        return parameters;
+    }
+
+    private static EvaluationWeights toWeights(double[] parameters) {
+        int[] own = new int[PATTERNS];
+        int[] opponent = new int[PATTERNS];
+        for (int p = 0; p < PATTERNS; p++) {
+            own[p] = (int) Math.round(parameters[p]);
+            opponent[p] = (int) Math.round(parameters[PATTERNS + p]);
+        }
+        return new EvaluationWeights(own, opponent);
+    }
+}
@@ -0,0 +1,124 @@
+package com.gobang.gobang;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 评估权重 - 每种棋型(PatternTable 中的 NONE ~ FIVE)在己方和对方视角下的分数，创建后不再改变
+ *
+ * 权重文件为文本，'#' 之后为注释，两行分别以 own 和 opponent 开头，后面依次是各棋型的分数:
+ *   own      0 2 10 30 60 300 500 4000 40000
+ *   opponent 0 1 5 15 30 150 250 2000 20000
+ */
+public final class EvaluationWeights {
+    // 手工设定的默认权重
+    public static final EvaluationWeights DEFAULT = new EvaluationWeights(
+        new int[] {0, 2, 10, 30, 60, 300, 500, 4000, 40000},
+        new int[] {0, 1, 5, 15, 30, 150, 250, 2000, 20000});
+
+    final int[] own;
+    final int[] opponent;
+
+    public EvaluationWeights(int[] own, int[] opponent) {
+        if (own.length != PatternTable.PATTERN_COUNT || opponent.length != PatternTable.PATTERN_COUNT) {
+            throw new IllegalArgumentException("权重个数应为 " + PatternTable.PATTERN_COUNT);
+        }
+        this.own = own.clone();
+        this.opponent = opponent.clone();
+    }
+
+    /**
+     * 己方某种棋型每颗棋子的分数
+     */
+    public int own(int pattern) {
+        return own[pattern];
+    }
+
+    /**
+     * 对方某种棋型每颗棋子的分数(从己方视角扣除)
+     */
+    public int opponent(int pattern) {
+        return opponent[pattern];
+    }
+
+    public static EvaluationWeights load(Path path) throws IOException {
+        int[] own = null;
+        int[] opponent = null;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int comment = line.indexOf('#');
+            String[] parts = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+            if (parts.length == 1 && parts[0].isEmpty()) {
+                continue;
+            }
+            if (parts.length != PatternTable.PATTERN_COUNT + 1) {
+                throw new IOException("权重文件格式错误: " + line);
+            }
+            int[] values = new int[PatternTable.PATTERN_COUNT];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Integer.parseInt(parts[i + 1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("权重文件格式错误: " + line, e);
+            }
+            if (parts[0].equals("own")) {
+                own = values;
+            } else if (parts[0].equals("opponent")) {
+                opponent = values;
+            } else {
+                throw new IOException("权重文件格式错误: " + line);
+            }
+        }
+        if (own == null || opponent == null) {
+            throw new IOException("权重文件缺少 own 或 opponent: " + path);
+        }
+        return new EvaluationWeights(own, opponent);
+    }
+
+    public void save(Path path, String comment) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (comment != null) {
+            for (String line : comment.split("\n")) {
+                lines.add("# " + line);
+            }
+        }
+        lines.add("own      " + join(own));
+        lines.add("opponent " + join(opponent));
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String join(int[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int value : values) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof EvaluationWeights)) {
+            return false;
+        }
+        EvaluationWeights other = (EvaluationWeights) o;
+        return Arrays.equals(own, other.own) && Arrays.equals(opponent, other.opponent);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(own) + Arrays.hashCode(opponent);
+    }
+
+    @Override
+    public String toString() {
+        return "own=" + Arrays.toString(own) + ", opponent=" + Arrays.toString(opponent);
+    }
+}
@@ -0,0 +1,215 @@
+package com.gobang.gobang;
+
+/**
+ * 增量局面评估器 - 为每条线缓存双方视角的得分
+ * 落子或提子后只重算经过该格的四条线，整盘评分随之增量更新
+ * 线上每颗棋子按所在9格窗口查 PatternTable 得到棋型，再按棋型计分
+ *
+ * 启动时指定 -Dgobang.evaluator=swar 时，查表前先用整条线的位运算(SWAR)一次筛出两类棋子：
+ * 所在的任何五格都有阻挡、不可能成五的死子(NONE)，以及前后4格内没有己方棋子的单子(必为 ONE)，
+ * 只有其余棋子逐个查表，结果与逐子查表完全相同。
+ * 默认仍逐子查表：棋型表常驻缓存，每颗棋子只需几纳秒，实测筛选本身的开销大于省下的查表
+ * (见 EvaluatorBenchmark)，保留这条路径以便在其他硬件上比较。
+ */
+public class Evaluator {
+    // 是否启用按位并行预筛选，启动时确定
+    static final boolean SWAR = "swar".equals(System.getProperty("gobang.evaluator"));
+
+    private final BitBoard board;
+
+    // 按棋型计算每颗棋子的价值，下标为 PatternTable 中的棋型
+    private final int[] ownWeights;
+    private final int[] opponentWeights;
+    private final int[][] lineScores;
+    private final int[] totals = new int[2];
+
+    // 每条线上处于眠三及以上棋型的棋子数，没有这样的棋子就不可能再走出冲四
+    private final int[][] lineThreats;
+    private final int[] threatTotals = new int[2];
+
+    // 扫描一条线时的临时结果，按颜色分别记录己方、对方权重下的得分和威胁棋子数
+    private final int[] ownScores = new int[2];
+    private final int[] opponentScores = new int[2];
+    private final int[] threatCounts = new int[2];
+
+    public Evaluator(BitBoard board) {
+        this(board, EvaluationWeights.DEFAULT);
+    }
+
+    public Evaluator(BitBoard board, EvaluationWeights weights) {
+        this.board = board;
+        this.ownWeights = weights.own;
+        this.opponentWeights = weights.opponent;
+        this.lineScores = new int[2][board.getLineCount()];
+        this.lineThreats = new int[2][board.getLineCount()];
+        reset();
+    }
+
+    /**
+     * 整盘重新计算，棋盘被整体修改后调用
+     */
+    public void reset() {
+        totals[BitBoard.BLACK] = 0;
+        totals[BitBoard.WHITE] = 0;
+        threatTotals[BitBoard.BLACK] = 0;
+        threatTotals[BitBoard.WHITE] = 0;
+        for (int line = 0; line < board.getLineCount(); line++) {
+            refreshLine(line);
+        }
+    }
+
+    /**
+     * 某格的棋子发生变化后调用，只重算经过该格的四条线
+     */
+    public void update(int cell) {
+        for (int dir = 0; dir < 4; dir++) {
+            refreshLine(board.lineOf(dir, cell));
+        }
+    }
+
+    /**
+     * 以某种颜色为视角的整盘评分
+     */
+    public int score(int color) {
+        return totals[color];
+    }
+
+    /**
+     * 某方处于眠三及以上棋型的棋子数，为0时该方不可能走出冲四，可以跳过威胁搜索
+     */
+    public int threats(int color) {
+        return threatTotals[color];
+    }
+
+    /**
+     * 某条线上是否有该方处于眠三及以上棋型的棋子
+     */
+    boolean hasThreat(int color, int line) {
+        return lineThreats[color][line] != 0;
+    }
+
+    /**
+     * 不依赖缓存、逐条线重新统计的整盘评分，用于校验增量结果
+     */
+    public static int evaluate(BitBoard board, int color) {
+        return evaluate(board, color, EvaluationWeights.DEFAULT);
+    }
+
+    public static int evaluate(BitBoard board, int color, EvaluationWeights weights) {
+        int score = 0;
+        for (int line = 0; line < board.getLineCount(); line++) {
+            score += stoneScore(board, line, color, weights.own)
+                - stoneScore(board, line, 1 - color, weights.opponent);
+        }
+        return score;
+    }
+
+    /**
+     * 统计某方各棋型的棋子数，累加到 counts[pattern]
+     * 整盘评分是这些计数与权重的线性组合，权重调优以它们为特征
+     */
+    static void countPatterns(BitBoard board, int color, int[] counts) {
+        for (int line = 0; line < board.getLineCount(); line++) {
+            long own = board.line(color, line);
+            long blocked = board.line(1 - color, line) | board.wall(line);
+            long stones = own;
+            if (SWAR && own != 0) {
+                long live = own & liveCells(blocked);
+                long lone = live & ~neighbours(own);
+                counts[PatternTable.ONE] += Long.bitCount(lone);
+                stones = live & ~lone;
+            }
+            for (; stones != 0; stones &= stones - 1) {
+                int pos = Long.numberOfTrailingZeros(stones) - BitBoard.PAD;
+                counts[PatternTable.pattern(PatternTable.key((int) (own >>> pos) & BitBoard.WINDOW_MASK,
+                    (int) (blocked >>> pos) & BitBoard.WINDOW_MASK))]++;
+            }
+        }
+    }
+
+    private void refreshLine(int line) {
+        // 每种颜色的棋子只扫描一次，同时得到两种视角下需要的得分
+        for (int color = BitBoard.BLACK; color <= BitBoard.WHITE; color++) {
+            scanLine(line, color);
+        }
+        for (int color = BitBoard.BLACK; color <= BitBoard.WHITE; color++) {
+            int score = ownScores[color] - opponentScores[1 - color];
+            totals[color] += score - lineScores[color][line];
+            lineScores[color][line] = score;
+            threatTotals[color] += threatCounts[color] - lineThreats[color][line];
+            lineThreats[color][line] = threatCounts[color];
+        }
+    }
+
+    private void scanLine(int line, int color) {
+        long own = board.line(color, line);
+        long blocked = board.line(1 - color, line) | board.wall(line);
+        int ownScore = 0;
+        int opponentScore = 0;
+        int threatCount = 0;
+        long stones = own;
+        if (SWAR && own != 0) {
+            long live = own & liveCells(blocked);
+            long lone = live & ~neighbours(own);
+            int ones = Long.bitCount(lone);
+            ownScore = ones * ownWeights[PatternTable.ONE];
+            opponentScore = ones * opponentWeights[PatternTable.ONE];
+            stones = live & ~lone;
+        }
+        for (; stones != 0; stones &= stones - 1) {
+            int pos = Long.numberOfTrailingZeros(stones) - BitBoard.PAD;
+            int pattern = PatternTable.pattern(PatternTable.key((int) (own >>> pos) & BitBoard.WINDOW_MASK,
+                (int) (blocked >>> pos) & BitBoard.WINDOW_MASK));
+            ownScore += ownWeights[pattern];
+            opponentScore += opponentWeights[pattern];
+            if (pattern >= PatternTable.THREE) {
+                threatCount++;
+            }
+        }
+        ownScores[color] = ownScore;
+        opponentScores[color] = opponentScore;
+        threatCounts[color] = threatCount;
+    }
+
+    /**
+     * 一条线上某方所有棋子的棋型分之和
+     */
+    private static int stoneScore(BitBoard board, int line, int color, int[] weights) {
+        long own = board.line(color, line);
+        long blocked = board.line(1 - color, line) | board.wall(line);
+        int score = 0;
+        long stones = own;
+        if (SWAR && own != 0) {
+            long live = own & liveCells(blocked);
+            long lone = live & ~neighbours(own);
+            score = Long.bitCount(lone) * weights[PatternTable.ONE];
+            stones = live & ~lone;
+        }
+        for (; stones != 0; stones &= stones - 1) {
+            // 第 pos + PAD 位对应线上第 pos 格，右移 pos 位后低9位就是以它为中心的窗口
+            int pos = Long.numberOfTrailingZeros(stones) - BitBoard.PAD;
+            int key = PatternTable.key((int) (own >>> pos) & BitBoard.WINDOW_MASK,
+                (int) (blocked >>> pos) & BitBoard.WINDOW_MASK);
+            score += weights[PatternTable.pattern(key)];
+        }
+        return score;
+    }
+
+    /**
+     * 线上属于某个没有阻挡的连续五格的位置，不在其中的棋子永远成不了五
+     * 线外的位都标记为阻挡，所以移位移入的0不会产生假的五格
+     */
+    static long liveCells(long blocked) {
+        long free = ~blocked;
+        long spans = free & (free >>> 1) & (free >>> 2) & (free >>> 3) & (free >>> 4);
+        return spans | (spans << 1) | (spans << 2) | (spans << 3) | (spans << 4);
+    }
+
+    /**
+     * 前后4格内有 stones 中棋子的位置
+     */
+    static long neighbours(long stones) {
+        return (stones << 1) | (stones << 2) | (stones << 3) | (stones << 4)
+            | (stones >>> 1) | (stones >>> 2) | (stones >>> 3) | (stones >>> 4);
+    }
+}
@@ -0,0 +1,539 @@
+package com.gobang.gobang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 蒙特卡洛树搜索玩家 - AIPlayer 之外的另一种AI
+ *
+ * 树内按 PUCT 公式选择，先验概率来自棋型分；叶节点用位棋盘快速模拟到终局，
+ * 模拟中能成五就成五、对方能成五就挡，其余从几个随机候选点里挑棋型分最高的。
+ * 多个线程共享同一棵树(树并行)，经过的节点先记虚拟损失，避免各线程挤在同一条路径上。
+ * 不依赖局面评估函数，棋盘越大相对 Alpha-Beta 越有优势。
+ */
+public class MCTSPlayer implements Player {
+    private String name;
+    private Stone stone;
+    
+    // PUCT 探索系数、未访问子节点的初始胜率
+    private static final double EXPLORATION = 1.5;
+    private static final double FIRST_PLAY_VALUE = 0.45;
+    
+    // 每次经过一个节点先记这么多次失败的访问，回传时撤销
+    private static final int VIRTUAL_LOSS = 3;
+    
+    // 节点完成这么多次访问后才展开子节点，每个节点最多保留先验最高的若干着法
+    private static final int EXPAND_VISITS = 8;
+    private static final int MAX_CHILDREN = 40;
+    
+    // 模拟时每步从这么多个随机候选点中挑棋型分最高的
+    private static final int ROLLOUT_SAMPLES = 3;
+    
+    // 每个线程每模拟这么多次检查一次时间
+    private static final int CHECK_INTERVAL = 63;
+    
+    private static final int DRAW = BitBoard.NONE;
+    
+    // 沿四个方向在行列上的步长
+    private static final int[] DR = {0, 1, 1, 1};
+    private static final int[] DC = {1, 0, 1, -1};
+    
+    private long timeBudgetMillis = 1500;
+    private long iterationBudget; // 大于0时按模拟次数停止，不再受时间限制
+    private int threads = 1;
+    private ExecutorService helperPool;
+    private long seed = System.nanoTime();
+    
+    // 上一次思考的统计
+    private long lastIterations;
+    private double lastWinRate;
+    
+    // 关闭后 getMove 不再打印每步的思考信息，大量对局时避免输出刷屏
+    private boolean verbose = true;
+    
+    public MCTSPlayer(String name, Stone stone) {
+        this.name = name;
+        this.stone = stone;
+    }
+    
+    /**
+     * 按时间控制每步思考，同时取消模拟次数限制
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = Math.max(1, millis);
+        this.iterationBudget = 0;
+    }
+    
+    /**
+     * 按模拟次数控制每步思考，单线程时相同种子下结果可以复现
+     */
+    public void setIterationBudget(long iterations) {
+        this.iterationBudget = Math.max(1, iterations);
+    }
+    
+    /**
+     * 设置搜索线程数，所有线程共享同一棵搜索树
+     */
+    public synchronized void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads != this.threads && helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        this.threads = threads;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setRandomSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * 是否在每步思考后打印统计信息，默认开启
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+    
+    /**
+     * 上一次思考所有线程完成的模拟次数
+     */
+    public long getLastIterations() {
+        return lastIterations;
+    }
+    
+    /**
+     * 上一次选中着法的模拟胜率(平局按半胜计)
+     */
+    public double getLastWinRate() {
+        return lastWinRate;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Stone getStone() {
+        return stone;
+    }
+    
+    @Override
+    public Move getMove(Board board) {
+        return getMove(board, new Cancellation());
+    }
+    
+    /**
+     * 可取消的思考：令牌到期或被取消时停止模拟，返回当前访问次数最多的着法
+     */
+    @Override
+    public Move getMove(Board board, Cancellation cancellation) {
+        BitBoard bitBoard = BitBoard.of(board);
+        int size = bitBoard.getSize();
+        int color = BitBoard.colorOf(stone);
+        
+        // 空棋盘时下在天元
+        if (bitBoard.getStoneCount() == 0) {
+            return new Move(size / 2, size / 2);
+        }
+        
+        long startTime = System.currentTimeMillis();
+        
+        // 能成五就成五，对方能成五就挡，不必模拟
+        CandidateSet candidates = new CandidateSet(bitBoard);
+        int urgent = fiveCell(bitBoard, candidates, color);
+        if (urgent == TranspositionTable.NO_MOVE) {
+            urgent = fiveCell(bitBoard, candidates, 1 - color);
+        }
+        if (urgent != TranspositionTable.NO_MOVE) {
+            lastIterations = 0;
+            lastWinRate = 1;
+            return new Move(urgent / size, urgent % size);
+        }
+        
+        // 根节点视为对手刚走完的局面
+        Node root = new Node(TranspositionTable.NO_MOVE, 1 - color, 1f);
+        long deadline = iterationBudget > 0 ? Long.MAX_VALUE : System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        Search search = new Search(root, iterationBudget, Math.min(deadline, cancellation.getDeadline()), cancellation);
+        
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService pool = helperPool();
+        for (int i = 1; i < threads; i++) {
+            Playout playout = new Playout(bitBoard.copy(), seed + i);
+            futures.add(pool.submit(() -> search.run(playout)));
+        }
+        search.run(new Playout(bitBoard, seed));
+        search.stopped = true;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // 辅助线程异常时只丢失它的模拟次数
+                System.err.println("MCTS辅助线程出错: " + e.getCause());
+            }
+        }
+        seed++;
+        
+        // 选访问次数最多的着法
+        Node best = root.mostVisitedChild();
+        int cell = best != null ? best.move : candidates.get(0);
+        lastIterations = search.iterations.get();
+        lastWinRate = best != null && best.visits > 0 ? best.score / (2.0 * best.visits) : 0;
+        
+        if (verbose) {
+            long endTime = System.currentTimeMillis();
+            System.out.printf("MCTS思考时间: %.2f秒, 模拟次数: %d, 选择位置: [%d, %d], 胜率: %.1f%%\n",
+                (endTime - startTime) / 1000.0, lastIterations, cell / size, cell % size, lastWinRate * 100);
+        }
+        
+        return new Move(cell / size, cell % size);
+    }
+    
+    /**
+     * 一次思考中所有线程共享的搜索树和停止条件
+     */
+    private static final class Search {
+        final Node root;
+        final long iterationBudget;
+        final long deadline;
+        final AtomicLong iterations = new AtomicLong();
+        final Cancellation cancellation;
+        volatile boolean stopped;
+        
+        Search(Node root, long iterationBudget, long deadline, Cancellation cancellation) {
+            this.root = root;
+            this.iterationBudget = iterationBudget;
+            this.deadline = deadline;
+            this.cancellation = cancellation;
+        }
+        
+        void run(Playout playout) {
+            while (!stopped) {
+                playout.iterate(root);
+                long count = iterations.incrementAndGet();
+                if ((iterationBudget > 0 && count >= iterationBudget)
+                    || ((count & CHECK_INTERVAL) == 0
+                        && (System.nanoTime() >= deadline || cancellation.isCancelRequested()))) {
+                    stopped = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 搜索树节点，代表 color 方刚走完 move 之后的局面
+     * 访问次数和得分(胜2分、平1分)用原子操作更新，子节点在第一次被选中时才创建
+     */
+    private static final class Node {
+        private static final AtomicIntegerFieldUpdater<Node> VISITS =
+            AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        private static final AtomicIntegerFieldUpdater<Node> SCORE =
+            AtomicIntegerFieldUpdater.newUpdater(Node.class, "score");
+        
+        final int move;
+        final int color;
+        final float prior;
+        volatile int visits;
+        volatile int score;
+        
+        // 终局节点：走完 move 后 color 方成五或者棋盘下满
+        volatile int winner = BitBoard.NONE;
+        volatile boolean terminal;
+        
+        // 展开后的着法(按先验从高到低)、先验概率和对应的子节点
+        volatile int[] moves;
+        float[] priors;
+        Node[] children;
+        
+        Node(int move, int color, float prior) {
+            this.move = move;
+            this.color = color;
+            this.prior = prior;
+        }
+        
+        void addVirtualLoss() {
+            VISITS.addAndGet(this, VIRTUAL_LOSS);
+        }
+        
+        /**
+         * 撤销虚拟损失，记一次真实访问；winner 为 DRAW 时按平局计分
+         */
+        void update(int winner) {
+            VISITS.addAndGet(this, 1 - VIRTUAL_LOSS);
+            SCORE.addAndGet(this, winner == color ? 2 : winner == DRAW ? 1 : 0);
+        }
+        
+        /**
+         * 按 PUCT 公式选择子节点的下标
+         */
+        int select() {
+            int[] childMoves = moves;
+            double sqrtVisits = Math.sqrt(Math.max(1, visits));
+            int bestIndex = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < childMoves.length; i++) {
+                Node child = children[i];
+                int n = child != null ? child.visits : 0;
+                double q = n > 0 ? child.score / (2.0 * n) : FIRST_PLAY_VALUE;
+                double value = q + EXPLORATION * priors[i] * sqrtVisits / (1 + n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestIndex = i;
+                }
+            }
+            return bestIndex;
+        }
+        
+        /**
+         * 取子节点，第一次选中时创建
+         */
+        Node child(int index) {
+            Node child = children[index];
+            if (child == null) {
+                synchronized (this) {
+                    child = children[index];
+                    if (child == null) {
+                        child = new Node(moves[index], 1 - color, priors[index]);
+                        children[index] = child;
+                    }
+                }
+            }
+            return child;
+        }
+        
+        Node mostVisitedChild() {
+            Node best = null;
+            if (moves == null) {
+                return null;
+            }
+            for (Node child : children) {
+                if (child != null && (best == null || child.visits > best.visits)) {
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+    
+    /**
+     * 每个线程自己的模拟棋盘，沿树下行和随机模拟的落子在一次模拟结束后全部撤销
+     */
+    private static final class Playout {
+        final BitBoard board;
+        final CandidateSet candidates;
+        final SplittableRandom random;
+        final int[] played;
+        final Node[] path;
+        int playedCount;
+        
+        Playout(BitBoard board, long seed) {
+            this.board = board;
+            this.candidates = new CandidateSet(board);
+            this.random = new SplittableRandom(seed);
+            this.played = new int[board.getCellCount()];
+            this.path = new Node[board.getCellCount() + 1];
+        }
+        
+        /**
+         * 一次完整的模拟：选择、展开、随机模拟、回传
+         */
+        void iterate(Node root) {
+            int pathLength = 0;
+            Node node = root;
+            int winner;
+            while (true) {
+                node.addVirtualLoss();
+                path[pathLength++] = node;
+                if (node.terminal) {
+                    winner = node.winner;
+                    break;
+                }
+                if (node.moves == null) {
+                    // visits 包括本线程刚加上的虚拟损失，减去后才是已完成的访问次数
+                    if (node.visits < EXPAND_VISITS + VIRTUAL_LOSS || !expand(node)) {
+                        winner = rollout(node.color);
+                        break;
+                    }
+                }
+                
+                Node child = node.child(node.select());
+                play(child.move, child.color);
+                if (!child.terminal) {
+                    if (board.checkWin(child.move, child.color)) {
+                        child.winner = child.color;
+                        child.terminal = true;
+                    } else if (board.isFull()) {
+                        child.winner = DRAW;
+                        child.terminal = true;
+                    }
+                }
+                node = child;
+            }
+            
+            for (int i = 0; i < pathLength; i++) {
+                path[i].update(winner);
+            }
+            while (playedCount > 0) {
+                int cell = played[--playedCount];
+                board.remove(cell);
+                candidates.remove(cell);
+            }
+        }
+        
+        /**
+         * 用当前局面的候选点展开节点，先验概率与轮到走棋一方的棋型分成正比
+         */
+        private boolean expand(Node node) {
+            int count = candidates.size();
+            if (count == 0) {
+                return false;
+            }
+            synchronized (node) {
+                if (node.moves != null) {
+                    return true;
+                }
+                int toMove = 1 - node.color;
+                int[] moves = new int[count];
+                int[] scores = new int[board.getCellCount()];
+                long total = 0;
+                for (int i = 0; i < count; i++) {
+                    int cell = candidates.get(i);
+                    moves[i] = cell;
+                    scores[cell] = SearchWorker.threatScore(board, cell, toMove) + 1;
+                }
+                SearchWorker.sortByScore(moves, count, scores);
+                count = Math.min(count, MAX_CHILDREN);
+                for (int i = 0; i < count; i++) {
+                    total += scores[moves[i]];
+                }
+                
+                float[] priors = new float[count];
+                for (int i = 0; i < count; i++) {
+                    priors[i] = (float) scores[moves[i]] / total;
+                }
+                node.priors = priors;
+                node.children = new Node[count];
+                node.moves = Arrays.copyOf(moves, count);
+                return true;
+            }
+        }
+        
+        /**
+         * 从 lastColor 方刚走完的局面模拟到终局，返回胜方，平局返回 DRAW
+         */
+        private int rollout(int lastColor) {
+            int toMove = 1 - lastColor;
+            int last = playedCount > 0 ? played[playedCount - 1] : TranspositionTable.NO_MOVE;
+            int previous = playedCount > 1 ? played[playedCount - 2] : TranspositionTable.NO_MOVE;
+            while (candidates.size() > 0) {
+                // 己方上一手形成的成五点直接成五；否则挡住对方上一手形成的成五点
+                int cell = fiveThrough(previous, toMove);
+                if (cell != TranspositionTable.NO_MOVE) {
+                    return toMove;
+                }
+                cell = fiveThrough(last, 1 - toMove);
+                if (cell == TranspositionTable.NO_MOVE) {
+                    cell = sample(toMove);
+                }
+                
+                play(cell, toMove);
+                if (board.checkWin(cell, toMove)) {
+                    return toMove;
+                }
+                previous = last;
+                last = cell;
+                toMove = 1 - toMove;
+            }
+            return DRAW;
+        }
+        
+        /**
+         * 从几个随机候选点中挑出棋型分最高的
+         */
+        private int sample(int color) {
+            int best = candidates.get(random.nextInt(candidates.size()));
+            int bestScore = SearchWorker.threatScore(board, best, color);
+            for (int i = 1; i < ROLLOUT_SAMPLES; i++) {
+                int cell = candidates.get(random.nextInt(candidates.size()));
+                int score = SearchWorker.threatScore(board, cell, color);
+                if (score > bestScore) {
+                    best = cell;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+        
+        /**
+         * 经过 cell 的四条线上 color 方的一个成五点
+         */
+        private int fiveThrough(int cell, int color) {
+            if (cell == TranspositionTable.NO_MOVE) {
+                return TranspositionTable.NO_MOVE;
+            }
+            int size = board.getSize();
+            int row = cell / size;
+            int col = cell % size;
+            for (int dir = 0; dir < 4; dir++) {
+                for (int step = -4; step <= 4; step++) {
+                    int r = row + step * DR[dir];
+                    int c = col + step * DC[dir];
+                    if (step == 0 || r < 0 || r >= size || c < 0 || c >= size) {
+                        continue;
+                    }
+                    int target = r * size + c;
+                    if (board.isEmpty(target) && PatternTable.shapeAt(board, target, dir, color) == PatternTable.FIVE) {
+                        return target;
+                    }
+                }
+            }
+            return TranspositionTable.NO_MOVE;
+        }
+        
+        private void play(int cell, int color) {
+            board.place(cell, color);
+            candidates.place(cell);
+            played[playedCount++] = cell;
+        }
+    }
+    
+    /**
+     * 候选点中 color 方的一个成五点
+     */
+    private static int fiveCell(BitBoard board, CandidateSet candidates, int color) {
+        for (int i = 0; i < candidates.size(); i++) {
+            int cell = candidates.get(i);
+            for (int dir = 0; dir < 4; dir++) {
+                if (PatternTable.shapeAt(board, cell, dir, color) == PatternTable.FIVE) {
+                    return cell;
+                }
+            }
+        }
+        return TranspositionTable.NO_MOVE;
+    }
+    
+    private synchronized ExecutorService helperPool() {
+        if (helperPool == null && threads > 1) {
+            helperPool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, name + "-mcts");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return helperPool;
+    }
+}
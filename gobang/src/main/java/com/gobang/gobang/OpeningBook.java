@@ -0,0 +1,231 @@
+package com.gobang.gobang;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 开局库 - 按局面哈希排序的二进制文件，只读映射到内存后直接二分查找
+ *
+ * 局面键取8种对称变换(4种旋转及其镜像)下 Zobrist 哈希的最小值，对称的局面共用同一组条目，
+ * 着法也变换到同一方向存储(局面本身对称时取等价着法中编号最小的)，查到后再变换回实际棋盘的方向。
+ * 查找不反序列化、不占用堆内存，同一进程内打开同一个文件的所有对局共用一份映射。
+ *
+ * 文件格式(大端)：
+ *   文件头16字节 - 魔数、版本、棋盘大小、条目数
+ *   条目每个16字节 - 局面键(long)、着法格子编号(short)、局数(short，无符号)、走棋方得分(int，胜2分平1分)
+ * 条目按局面键(有符号比较)升序排列，同一局面的多个着法相邻，由 OpeningBookBuilder 生成
+ */
+public final class OpeningBook {
+    public static final int NO_MOVE = TranspositionTable.NO_MOVE;
+    
+    static final int MAGIC = 0x474F424B; // "GOBK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 16;
+    
+    private static final ConcurrentHashMap<Path, OpeningBook> OPENED = new ConcurrentHashMap<>();
+    
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int entryCount;
+    
+    private OpeningBook(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("不是有效的开局库文件");
+        }
+        this.size = buffer.getInt(8);
+        this.entryCount = buffer.getInt(12);
+        if ((long) HEADER_BYTES + (long) entryCount * ENTRY_BYTES > buffer.capacity()) {
+            throw new IllegalArgumentException("开局库文件不完整");
+        }
+    }
+    
+    /**
+     * 打开开局库，同一路径只映射一次
+     */
+    public static OpeningBook open(Path path) {
+        return OPENED.computeIfAbsent(path.toAbsolutePath().normalize(), OpeningBook::map);
+    }
+    
+    private static OpeningBook map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return new OpeningBook(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开开局库: " + path, e);
+        }
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public int getEntryCount() {
+        return entryCount;
+    }
+    
+    /**
+     * 查找当前局面的开局库着法，选择走棋方得分率最高的一个
+     *
+     * @return 格子编号，库中没有该局面或棋盘大小不同时返回 NO_MOVE
+     */
+    public int lookup(BitBoard board) {
+        if (board.getSize() != size) {
+            return NO_MOVE;
+        }
+        long canonical = canonicalHash(board);
+        int symmetry = canonicalSymmetry(board, canonical);
+        int index = firstEntry(canonical);
+        if (index < 0) {
+            return NO_MOVE;
+        }
+        
+        int bestMove = NO_MOVE;
+        double bestRate = -1;
+        for (; index < entryCount && keyAt(index) == canonical; index++) {
+            int offset = HEADER_BYTES + index * ENTRY_BYTES;
+            int games = buffer.getShort(offset + 10) & 0xFFFF;
+            int score = buffer.getInt(offset + 12);
+            // 局数少的着法得分率向50%收缩
+            double rate = (score + 1.0) / (2.0 * games + 2.0);
+            int cell = inverse(symmetry, buffer.getShort(offset + 8), size);
+            if (rate > bestRate && board.isEmpty(cell)) {
+                bestRate = rate;
+                bestMove = cell;
+            }
+        }
+        return bestMove;
+    }
+    
+    /**
+     * 第一个键等于 key 的条目下标，没有时返回 -1
+     */
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < entryCount && keyAt(low) == key ? low : -1;
+    }
+    
+    private long keyAt(int index) {
+        return buffer.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+    
+    /**
+     * 8种对称变换下局面哈希的最小值
+     */
+    static long canonicalHash(BitBoard board) {
+        long[] hashes = symmetricHashes(board);
+        long min = hashes[0];
+        for (int t = 1; t < 8; t++) {
+            min = Math.min(min, hashes[t]);
+        }
+        return min;
+    }
+    
+    /**
+     * 取到最小哈希值的变换编号，有多个时取编号最小的，保证存取一致
+     */
+    static int canonicalSymmetry(BitBoard board, long canonical) {
+        long[] hashes = symmetricHashes(board);
+        for (int t = 0; t < 8; t++) {
+            if (hashes[t] == canonical) {
+                return t;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * 着法在开局库中的存储形式：局面本身对称时，等价的着法统一取编号最小的一个，统计合并到一起
+     */
+    static int canonicalMove(BitBoard board, long canonical, int cell) {
+        long[] hashes = symmetricHashes(board);
+        int move = Integer.MAX_VALUE;
+        for (int t = 0; t < 8; t++) {
+            if (hashes[t] == canonical) {
+                move = Math.min(move, transform(t, cell, board.getSize()));
+            }
+        }
+        return move;
+    }
+    
+    private static long[] symmetricHashes(BitBoard board) {
+        int size = board.getSize();
+        long[] hashes = new long[8];
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            int color = board.colorAt(cell);
+            if (color == BitBoard.NONE) {
+                continue;
+            }
+            for (int t = 0; t < 8; t++) {
+                hashes[t] ^= Zobrist.key(color, transform(t, cell, size));
+            }
+        }
+        return hashes;
+    }
+    
+    /**
+     * 对格子做第 t 种对称变换：第0位为转置，第1位为上下翻转，第2位为左右翻转
+     */
+    static int transform(int t, int cell, int size) {
+        int row = cell / size;
+        int col = cell % size;
+        if ((t & 1) != 0) {
+            int swap = row;
+            row = col;
+            col = swap;
+        }
+        if ((t & 2) != 0) {
+            row = size - 1 - row;
+        }
+        if ((t & 4) != 0) {
+            col = size - 1 - col;
+        }
+        return row * size + col;
+    }
+    
+    /**
+     * transform 的逆变换：先撤销翻转，再撤销转置
+     */
+    static int inverse(int t, int cell, int size) {
+        int row = cell / size;
+        int col = cell % size;
+        if ((t & 4) != 0) {
+            col = size - 1 - col;
+        }
+        if ((t & 2) != 0) {
+            row = size - 1 - row;
+        }
+        if ((t & 1) != 0) {
+            int swap = row;
+            row = col;
+            col = swap;
+        }
+        return row * size + col;
+    }
+    
+    /**
+     * 写入文件头，供 OpeningBookBuilder 使用
+     */
+    static void writeHeader(ByteBuffer header, int size, int entryCount) {
+        header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(entryCount);
+    }
+}
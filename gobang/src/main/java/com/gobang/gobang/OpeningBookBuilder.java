@@ -0,0 +1,239 @@
+package com.gobang.gobang;
+
+import com.gobang.gobang.record.GameRecordFormat;
+import com.gobang.gobang.record.GameRecordReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 离线生成开局库 - 统计自对弈或棋谱中前若干手每个局面下各着法的局数和得分，写成 OpeningBook 格式
+ *
+ * 用法: OpeningBookBuilder 输出文件 [自对弈局数] [库深度] [每步毫秒数] [棋盘大小] [棋谱文件...]
+ * 扩展名为 .gbr 的棋谱文件按二进制棋谱格式(GameRecordFormat)读取，
+ * 其他棋谱文件每行一局，着法按黑先交替列出，如 "7,7 7,8 8,8"，胜负由最后一手是否成五判断
+ */
+public class OpeningBookBuilder {
+    // 自对弈时天元之后随机走的手数，让开局有变化
+    private static final int RANDOM_PLIES = 2;
+    
+    // 局数不足的着法不写入开局库
+    private static final int MIN_GAMES = 2;
+    
+    private final int size;
+    private final int maxPlies;
+    
+    // 局面键 -> (着法 -> {局数, 走棋方得分})
+    private final Map<Long, Map<Integer, int[]>> positions = new HashMap<>();
+    
+    public OpeningBookBuilder(int size, int maxPlies) {
+        this.size = size;
+        this.maxPlies = maxPlies;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("用法: OpeningBookBuilder 输出文件 [自对弈局数] [库深度] [每步毫秒数] [棋盘大小] [棋谱文件...]");
+            return;
+        }
+        Path output = Path.of(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        long millis = args.length > 3 ? Long.parseLong(args[3]) : 200;
+        int size = args.length > 4 ? Integer.parseInt(args[4]) : 15;
+        
+        OpeningBookBuilder builder = new OpeningBookBuilder(size, plies);
+        for (int i = 5; i < args.length; i++) {
+            Path records = Path.of(args[i]);
+            if (records.getFileName().toString().endsWith(".gbr")) {
+                builder.addGameRecords(records);
+            } else {
+                builder.addRecords(records);
+            }
+        }
+        builder.selfPlay(games, millis, 1);
+        int entries = builder.write(output, MIN_GAMES);
+        System.out.printf("开局库已写入 %s: %d 个局面, %d 个条目%n", output, builder.getPositionCount(), entries);
+    }
+    
+    public int getPositionCount() {
+        return positions.size();
+    }
+    
+    /**
+     * 用 AIPlayer 自对弈 games 局并统计，每局使用不同的随机种子
+     */
+    public void selfPlay(int games, long millisPerMove, long seed) {
+        for (int game = 0; game < games; game++) {
+            SplittableRandom random = new SplittableRandom(seed + game);
+            AIPlayer black = new AIPlayer("黑", Stone.BLACK);
+            AIPlayer white = new AIPlayer("白", Stone.WHITE);
+            for (AIPlayer player : new AIPlayer[] {black, white}) {
+                player.setTimeBudget(millisPerMove);
+                player.setRandomSeed(seed + game);
+            }
+            
+            Board board = new Board(size);
+            BitBoard bitBoard = new BitBoard(size);
+            int[] cells = new int[size * size];
+            int count = 0;
+            int winner = BitBoard.NONE;
+            while (!bitBoard.isFull()) {
+                int color = count % 2 == 0 ? BitBoard.BLACK : BitBoard.WHITE;
+                int cell;
+                if (count == 0) {
+                    cell = size / 2 * size + size / 2;
+                } else if (count <= RANDOM_PLIES) {
+                    cell = randomNeighbor(bitBoard, random);
+                } else {
+                    Move move = (color == BitBoard.BLACK ? black : white).getMove(board);
+                    cell = move.getRow() * size + move.getCol();
+                }
+                board.placeStone(cell / size, cell % size, BitBoard.stoneOf(color));
+                bitBoard.place(cell, color);
+                cells[count++] = cell;
+                if (bitBoard.checkWin(cell, color)) {
+                    winner = color;
+                    break;
+                }
+            }
+            addGame(cells, count, winner);
+        }
+    }
+    
+    /**
+     * 读入文本棋谱，无法解析或有非法着法的行跳过
+     */
+    public void addRecords(Path path) throws IOException {
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] tokens = line.trim().split("\\s+");
+            BitBoard bitBoard = new BitBoard(size);
+            int[] cells = new int[tokens.length];
+            int winner = BitBoard.NONE;
+            boolean valid = true;
+            for (int i = 0; i < tokens.length && valid; i++) {
+                String[] parts = tokens[i].split(",");
+                try {
+                    int row = Integer.parseInt(parts[0]);
+                    int col = Integer.parseInt(parts[1]);
+                    int color = i % 2 == 0 ? BitBoard.BLACK : BitBoard.WHITE;
+                    valid = row >= 0 && row < size && col >= 0 && col < size
+                        && bitBoard.isEmpty(row * size + col) && winner == BitBoard.NONE;
+                    if (valid) {
+                        cells[i] = row * size + col;
+                        bitBoard.place(cells[i], color);
+                        if (bitBoard.checkWin(cells[i], color)) {
+                            winner = color;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    valid = false;
+                }
+            }
+            if (valid) {
+                addGame(cells, tokens.length, winner);
+            }
+        }
+    }
+    
+    /**
+     * 顺序读入二进制棋谱，棋盘大小不同或没有下完的对局跳过
+     */
+    public void addGameRecords(Path path) throws IOException {
+        int[] cells = new int[size * size];
+        try (GameRecordReader reader = GameRecordReader.open(path)) {
+            while (reader.next()) {
+                int result = reader.getResult();
+                if (reader.getSize() != size || result == GameRecordFormat.RESULT_UNFINISHED
+                    || reader.getMoveCount() > cells.length) {
+                    continue;
+                }
+                int winner = result == GameRecordFormat.RESULT_BLACK_WIN ? BitBoard.BLACK
+                    : result == GameRecordFormat.RESULT_WHITE_WIN ? BitBoard.WHITE : BitBoard.NONE;
+                addGame(cells, reader.getMoves(cells), winner);
+            }
+        }
+    }
+    
+    /**
+     * 统计一局棋的前 maxPlies 手，cells 按黑先交替排列，winner 为胜方颜色，平局为 BitBoard.NONE
+     */
+    public void addGame(int[] cells, int count, int winner) {
+        BitBoard bitBoard = new BitBoard(size);
+        for (int ply = 0; ply < Math.min(count, maxPlies); ply++) {
+            int color = ply % 2 == 0 ? BitBoard.BLACK : BitBoard.WHITE;
+            long key = OpeningBook.canonicalHash(bitBoard);
+            int move = OpeningBook.canonicalMove(bitBoard, key, cells[ply]);
+            int[] stats = positions.computeIfAbsent(key, k -> new HashMap<>())
+                .computeIfAbsent(move, m -> new int[2]);
+            stats[0]++;
+            stats[1] += winner == color ? 2 : winner == BitBoard.NONE ? 1 : 0;
+            bitBoard.place(cells[ply], color);
+        }
+    }
+    
+    /**
+     * 按局面键排序写出开局库，局数少于 minGames 的着法不写入
+     *
+     * @return 写入的条目数
+     */
+    public int write(Path path, int minGames) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, int[]>> position : positions.entrySet()) {
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                int[] stats = move.getValue();
+                if (stats[0] >= minGames) {
+                    // 局数超过 short 范围时按比例缩小，保持得分率不变
+                    int games = stats[0];
+                    int score = stats[1];
+                    if (games > 0xFFFF) {
+                        score = (int) ((long) score * 0xFFFF / games);
+                        games = 0xFFFF;
+                    }
+                    entries.add(new long[] {position.getKey(), move.getKey(), games, score});
+                }
+            }
+        }
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_BYTES + entries.size() * OpeningBook.ENTRY_BYTES);
+        OpeningBook.writeHeader(buffer, size, entries.size());
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt((int) entry[3]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return entries.size();
+    }
+    
+    /**
+     * 与已有棋子相邻的随机空位
+     */
+    private int randomNeighbor(BitBoard bitBoard, SplittableRandom random) {
+        CandidateSet candidates = new CandidateSet(bitBoard);
+        while (true) {
+            int cell = candidates.get(random.nextInt(candidates.size()));
+            if (bitBoard.hasAdjacentStone(cell / size, cell % size, 1)) {
+                return cell;
+            }
+        }
+    }
+}
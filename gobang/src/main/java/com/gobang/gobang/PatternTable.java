@@ -0,0 +1,160 @@
+package com.gobang.gobang;
+
+import java.util.Arrays;
+
+/**
+ * 棋型查找表 - 预先计算以某格为中心、沿一个方向的9格窗口属于哪种棋型
+ *
+ * 窗口按三进制编码：每格为 空(0)、己方(1)、阻挡(2，对方棋子或棋盘外)，
+ * 共 3^9 = 19683 种，查一次表就能得到棋型，不必逐格计数。
+ * 棋型按递归规则定义：能直接成五的空位数决定冲四/活四，
+ * 再落一子能成活四/冲四的是活三/眠三，依此类推到活二/眠二。
+ */
+public final class PatternTable {
+    public static final int NONE = 0;
+    public static final int ONE = 1;
+    public static final int TWO = 2;         // 眠二
+    public static final int OPEN_TWO = 3;    // 活二
+    public static final int THREE = 4;       // 眠三
+    public static final int OPEN_THREE = 5;  // 活三(含跳三)
+    public static final int FOUR = 6;        // 冲四(含跳四)
+    public static final int OPEN_FOUR = 7;   // 活四
+    public static final int FIVE = 8;        // 五连
+    public static final int PATTERN_COUNT = 9;
+
+    static final int WINDOW = 9;
+    static final int CENTER = 4;
+    private static final int KEY_COUNT = 19683;
+
+    private static final int[] TERNARY = new int[1 << WINDOW];
+    private static final byte[] PATTERNS = new byte[KEY_COUNT];
+
+    static {
+        for (int mask = 0; mask < TERNARY.length; mask++) {
+            int value = 0;
+            for (int i = WINDOW - 1; i >= 0; i--) {
+                value = value * 3 + ((mask >>> i) & 1);
+            }
+            TERNARY[mask] = value;
+        }
+
+        byte[] memo = new byte[KEY_COUNT];
+        Arrays.fill(memo, (byte) -1);
+        int[] cells = new int[WINDOW];
+        for (int key = 0; key < KEY_COUNT; key++) {
+            decode(key, cells);
+            PATTERNS[key] = cells[CENTER] == 1 ? (byte) classify(cells, memo) : NONE;
+        }
+    }
+
+    private PatternTable() {
+    }
+
+    /**
+     * 窗口编码：own、blocked 为9位掩码，第4位是中心格
+     */
+    public static int key(int own, int blocked) {
+        return TERNARY[own] + 2 * TERNARY[blocked];
+    }
+
+    public static int pattern(int key) {
+        return PATTERNS[key];
+    }
+
+    /**
+     * 某格沿一个方向上对 color 方构成的棋型；该格为空时按在此落子计算
+     */
+    public static int shapeAt(BitBoard board, int cell, int dir, int color) {
+        int line = board.lineOf(dir, cell);
+        int pos = board.posOf(dir, cell);
+        int own = (int) (board.line(color, line) >>> pos) & BitBoard.WINDOW_MASK;
+        int blocked = (int) ((board.line(1 - color, line) | board.wall(line)) >>> pos) & BitBoard.WINDOW_MASK;
+        if ((blocked & (1 << CENTER)) != 0) {
+            return NONE;
+        }
+        return PATTERNS[TERNARY[own | (1 << CENTER)] + 2 * TERNARY[blocked]];
+    }
+
+    private static void decode(int key, int[] cells) {
+        for (int i = 0; i < WINDOW; i++) {
+            cells[i] = key % 3;
+            key /= 3;
+        }
+    }
+
+    private static int encode(int[] cells) {
+        int key = 0;
+        for (int i = WINDOW - 1; i >= 0; i--) {
+            key = key * 3 + cells[i];
+        }
+        return key;
+    }
+
+    private static int classify(int[] cells, byte[] memo) {
+        int key = encode(cells);
+        if (memo[key] >= 0) {
+            return memo[key];
+        }
+
+        int result;
+        if (hasFive(cells)) {
+            result = FIVE;
+        } else {
+            // 能直接成五的空位数
+            int completions = 0;
+            for (int i = 0; i < WINDOW; i++) {
+                if (cells[i] == 0) {
+                    cells[i] = 1;
+                    if (hasFive(cells)) {
+                        completions++;
+                    }
+                    cells[i] = 0;
+                }
+            }
+
+            if (completions >= 2) {
+                result = OPEN_FOUR;
+            } else if (completions == 1) {
+                result = FOUR;
+            } else {
+                // 再落一子能形成的最好棋型，降一级；无论怎样都成不了五的棋子不计棋型
+                result = NONE;
+                for (int i = 0; i < WINDOW; i++) {
+                    if (cells[i] == 0) {
+                        cells[i] = 1;
+                        result = Math.max(result, demote(classify(cells, memo)));
+                        cells[i] = 0;
+                    }
+                }
+            }
+        }
+
+        memo[key] = (byte) result;
+        return result;
+    }
+
+    private static int demote(int pattern) {
+        switch (pattern) {
+            case OPEN_FOUR: return OPEN_THREE;
+            case FOUR: return THREE;
+            case OPEN_THREE: return OPEN_TWO;
+            case THREE: return TWO;
+            case NONE: return NONE;
+            default: return ONE;
+        }
+    }
+
+    /**
+     * 窗口内是否有包含中心格的五连(9格窗口内的五连必然经过中心)
+     */
+    private static boolean hasFive(int[] cells) {
+        int run = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            run = cells[i] == 1 ? run + 1 : 0;
+            if (run >= 5) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,8 @@
 package com.gobang.gobang;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * 玩家接口
  */
@@ -7,4 +10,41 @@ public interface Player {
     String getName();
     Stone getStone();
     Move getMove(Board board);
-}    
\ No newline at end of file
+
+    /**
+     * 可取消的思考，支持取消的玩家应重写此方法并在思考过程中检查令牌
+     */
+    default Move getMove(Board board, Cancellation cancellation) {
+        return getMove(board);
+    }
+
+    /**
+     * 在共用线程池中异步思考，见 {@link #getMoveAsync(Board, Cancellation)}
+     */
+    default CompletableFuture<Move> getMoveAsync(Board board) {
+        return getMoveAsync(board, new Cancellation());
+    }
+
+    /**
+     * 在共用线程池中异步思考
+     * 调用时复制棋盘(写时复制，常数时间)，之后修改传入的棋盘不影响这次思考；
+     * 返回的 future 被取消或异常结束(如 orTimeout 超时)时令牌随之取消，后台搜索尽快停止；
+     * 线程池队列已满时不抛出异常，返回以 RejectedExecutionException 结束的 future
+     */
+    default CompletableFuture<Move> getMoveAsync(Board board, Cancellation cancellation) {
+        Board snapshot = board.copy();
+        CompletableFuture<Move> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> getMove(snapshot, cancellation), PlayerExecutor.get());
+        } catch (RejectedExecutionException e) {
+            cancellation.cancel();
+            return CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((move, error) -> {
+            if (error != null) {
+                cancellation.cancel();
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gobang.gobang;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步思考共用的线程池 - 线程数等于处理器数，排队的思考请求有上限
+ * 队列满时提交会被拒绝(RejectedExecutionException)，而不是无限堆积
+ */
+final class PlayerExecutor {
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final ExecutorService EXECUTOR = create();
+
+    private PlayerExecutor() {
+    }
+
+    static ExecutorService get() {
+        return EXECUTOR;
+    }
+
+    private static ExecutorService create() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "gobang-player-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        // 空闲时不保留线程
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,78 @@
+package com.gobang.gobang;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * AI 每走一步的 JFR 事件，持续时间为整个 getMove，字段取自这一步的 SearchStatistics
+ * 没有开启记录时 shouldCommit 为 false，不会填写字段
+ */
+@Name("com.gobang.Search")
+@Label("AI Search")
+@Category("Gobang")
+@Description("AI 一步棋的搜索统计")
+@StackTrace(false)
+final class SearchEvent extends Event {
+    @Label("Player")
+    String player;
+
+    @Label("Source")
+    String source;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("TT Probes")
+    long ttProbes;
+
+    @Label("TT Hits")
+    long ttHits;
+
+    @Label("Eval Cache Probes")
+    long cacheProbes;
+
+    @Label("Eval Cache Hits")
+    long cacheHits;
+
+    @Label("Cutoffs")
+    long cutoffs;
+
+    @Label("First Move Cutoffs")
+    long firstMoveCutoffs;
+
+    @Label("Completed Depth")
+    int completedDepth;
+
+    @Label("Max Ply")
+    int maxPly;
+
+    /**
+     * 结束计时，记录开启时填写字段并提交
+     */
+    void commit(String player, SearchStatistics statistics) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.player = player;
+        this.source = statistics.getSource().name();
+        this.nodes = statistics.getNodes();
+        this.evaluations = statistics.getEvaluations();
+        this.ttProbes = statistics.getTtProbes();
+        this.ttHits = statistics.getTtHits();
+        this.cacheProbes = statistics.getCacheProbes();
+        this.cacheHits = statistics.getCacheHits();
+        this.cutoffs = statistics.getCutoffs();
+        this.firstMoveCutoffs = statistics.getCutoffs(0);
+        this.completedDepth = statistics.getCompletedDepth();
+        this.maxPly = statistics.getMaxPly();
+        commit();
+    }
+}
@@ -0,0 +1,146 @@
+package com.gobang.gobang;
+
+/**
+ * 一次思考的搜索统计
+ * 每个搜索线程只在自己的 SearchWorker 上计数(不共享、不加锁)，思考结束后汇总到这里，
+ * 之后由 EngineMetrics 发布给 Micrometer 和 JFR
+ */
+public final class SearchStatistics {
+    /**
+     * 着法来源
+     */
+    public enum Source {
+        SEARCH,  // 全宽度搜索
+        THREAT,  // 威胁空间搜索找到的胜法
+        BOOK,    // 开局库
+        PONDER   // 直接使用后台思考的结果
+    }
+
+    // 产生剪枝的着法序号分档：第1~7个着法各一档，其余合为最后一档
+    public static final int CUTOFF_INDEX_BUCKETS = 8;
+
+    private Source source;
+    private long nodes;
+    private long evaluations;
+    private long ttProbes;
+    private long ttHits;
+    private long cacheProbes;
+    private long cacheHits;
+    private long cutoffs;
+    private final long[] cutoffsByIndex = new long[CUTOFF_INDEX_BUCKETS];
+    private int completedDepth;
+    private int maxPly;
+    private long elapsedNanos;
+
+    SearchStatistics(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * 累加一个搜索线程的计数
+     */
+    void add(SearchWorker worker) {
+        nodes += worker.getNodes();
+        evaluations += worker.getEvaluations();
+        ttProbes += worker.getTtProbes();
+        ttHits += worker.getTtHits();
+        cacheProbes += worker.getCacheProbes();
+        cacheHits += worker.getCacheHits();
+        cutoffs += worker.getCutoffs();
+        long[] byIndex = worker.getCutoffsByIndex();
+        for (int i = 0; i < CUTOFF_INDEX_BUCKETS; i++) {
+            cutoffsByIndex[i] += byIndex[i];
+        }
+        maxPly = Math.max(maxPly, worker.getMaxPly());
+    }
+
+    void setSource(Source source) {
+        this.source = source;
+    }
+
+    void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    void setCompletedDepth(int completedDepth) {
+        this.completedDepth = completedDepth;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * 所有线程搜索的节点数(威胁空间搜索找到胜法时为威胁搜索的节点数)
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 叶节点静态评估次数
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getTtProbes() {
+        return ttProbes;
+    }
+
+    public long getTtHits() {
+        return ttHits;
+    }
+
+    public long getCacheProbes() {
+        return cacheProbes;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * 在第 index+1 个着法上产生剪枝的次数，最后一档包括之后所有的着法
+     */
+    public long getCutoffs(int index) {
+        return cutoffsByIndex[index];
+    }
+
+    /**
+     * 完整搜完的迭代深度
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * 搜索到达的最大层数
+     */
+    public int getMaxPly() {
+        return maxPly;
+    }
+
+    /**
+     * 这一步从开始思考到得出着法的时间
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getCacheHitRate() {
+        return cacheProbes == 0 ? 0 : (double) cacheHits / cacheProbes;
+    }
+
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) cutoffsByIndex[0] / cutoffs;
+    }
+}
@@ -0,0 +1,592 @@
+package com.gobang.gobang;
+
+/**
+ * 搜索线程 - 在自己的位棋盘副本上做迭代加深的主要变例搜索(PVS)，每轮以上一轮的得分设置渴望窗口
+ * 多个搜索线程共享同一个置换表(Lazy SMP)，彼此只通过置换表交换信息
+ */
+class SearchWorker {
+    // 胜负已定的评分阈值，搜到后不再加深
+    static final int WIN_THRESHOLD = 90000;
+    
+    // 每搜索这么多个节点检查一次时间和节点预算
+    private static final int CHECK_INTERVAL = 1023;
+    
+    // 搜索树的最大层数，决定每层着法缓冲区的数量
+    static final int MAX_PLY = 64;
+    
+    // 叶节点的连续冲四检查：深度和节点上限都很小，只用来识别静态评分看不出的必胜
+    private static final int LEAF_VCF_DEPTH = 4;
+    private static final int LEAF_VCF_NODES = 64;
+    // 叶节点找到连续冲四时的评分，高于胜负阈值但低于实际成五的分数
+    static final int VCF_WIN_SCORE = WIN_THRESHOLD + 1000;
+    // 成五的评分，减去离根节点层数的 100 倍，越快的胜利得分越高
+    private static final int WIN_SCORE = 100000;
+    // 不低于它的评分是按层数计算的成五，存入置换表时换算成相对当前节点的分数
+    private static final int MATE_SCORE = WIN_SCORE - MAX_PLY * 100;
+    // 窗口边界，比任何评分都大且取负不会溢出
+    private static final int INFINITY = 1_000_000;
+    
+    // 渴望窗口的初始半宽，失败时放大4倍
+    private static final int ASPIRATION_WINDOW = 200;
+    
+    private final BitBoard searchBoard;
+    private final Evaluator evaluator;
+    private final CandidateSet candidates;
+    private final ThreatSolver threatSolver;
+    private final TranspositionTable transpositionTable;
+    private final EvaluationCache evaluationCache;
+    private final int aiColor;
+    private final Control control;
+    
+    // 着法排序的分档，同一档内再按棋型和历史得分排序
+    private static final int ORDER_TT = Integer.MAX_VALUE;
+    private static final int ORDER_WIN = 1 << 30;
+    private static final int ORDER_BLOCK = 1 << 29;
+    private static final int ORDER_OPEN_FOUR = 1 << 28;
+    private static final int ORDER_KILLER = 1 << 27;
+    private static final int MAX_THREAT_SCORE = (1 << 11) - 1;
+    private static final int MAX_HISTORY = (1 << 16) - 1;
+    
+    // 按棋型给出的排序分：在此落子形成的己方棋型、以及能阻止的对方棋型
+    private static final int[] ORDER_ATTACK = {0, 1, 2, 6, 8, 60, 80, 400, 1000};
+    private static final int[] ORDER_DEFEND = {0, 0, 1, 4, 5, 40, 50, 300, 900};
+    
+    // 每层预先分配的着法和评分缓冲区，搜索过程中不再创建对象
+    private final int[][] moveBuffers = new int[MAX_PLY][];
+    private final int[][] scoreBuffers = new int[MAX_PLY][];
+    
+    // 每层两个杀手着法，以及按颜色和格子统计的历史得分
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history;
+    
+    // 搜索统计，每个工作线程只写自己的计数，思考结束后由 SearchStatistics 汇总
+    private long nodes;
+    private long evaluations;
+    private long ttProbes;
+    private long ttHits;
+    private long cutoffs;
+    private final long[] cutoffsByIndex = new long[SearchStatistics.CUTOFF_INDEX_BUCKETS];
+    private long cacheProbes;
+    private long cacheHits;
+    private int maxPly;
+    private boolean abortable;
+    private boolean aborted;
+    
+    // 最后一轮完整搜索的结果
+    private int bestMove = TranspositionTable.NO_MOVE;
+    private int bestScore = Integer.MIN_VALUE;
+    private int completedDepth;
+    
+    /**
+     * 同一次思考中所有搜索线程共享的停止条件
+     */
+    static final class Control {
+        final long deadline;
+        final long nodeBudget;
+        final Cancellation cancellation; // 调用方的取消令牌，可以为 null
+        volatile boolean stopped;
+        
+        Control(long deadline, long nodeBudget) {
+            this(deadline, nodeBudget, null);
+        }
+        
+        Control(long deadline, long nodeBudget, Cancellation cancellation) {
+            this.deadline = cancellation != null ? Math.min(deadline, cancellation.getDeadline()) : deadline;
+            this.nodeBudget = nodeBudget;
+            this.cancellation = cancellation;
+        }
+    }
+    
+    SearchWorker(BitBoard board, int aiColor, TranspositionTable transpositionTable,
+                 EvaluationCache evaluationCache, Control control, EvaluationWeights weights) {
+        this.searchBoard = board;
+        this.evaluator = new Evaluator(board, weights);
+        this.candidates = new CandidateSet(board);
+        this.threatSolver = new ThreatSolver(board, evaluator, candidates);
+        this.history = new int[2][board.getCellCount()];
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = TranspositionTable.NO_MOVE;
+            plyKillers[1] = TranspositionTable.NO_MOVE;
+        }
+        this.transpositionTable = transpositionTable;
+        this.evaluationCache = evaluationCache;
+        this.aiColor = aiColor;
+        this.control = control;
+    }
+    
+    /**
+     * 从 startDepth 开始逐层加深到 maxDepth，预算用完时保留最后一轮完整搜索的结果
+     * 根节点着法用格子编号(row * size + col)表示，数组会按每轮得分重新排序
+     */
+    void search(int[] rootMoves, int startDepth, int maxDepth) {
+        int[] rootScores = new int[searchBoard.getCellCount()];
+        bestMove = rootMoves[0];
+        maxDepth = Math.min(maxDepth, MAX_PLY - 2);
+        
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            // 渴望窗口：以上一轮的得分为中心，落在窗口外时向失败的一侧放宽后重新搜索
+            int delta = ASPIRATION_WINDOW;
+            boolean aspirate = completedDepth > 0 && Math.abs(bestScore) < WIN_THRESHOLD;
+            int alpha = aspirate ? bestScore - delta : -INFINITY;
+            int beta = aspirate ? bestScore + delta : INFINITY;
+            int iterationScore;
+            while (true) {
+                iterationScore = searchRoot(rootMoves, depth, alpha, beta, rootScores);
+                if (aborted) {
+                    break;
+                }
+                if (iterationScore <= alpha && alpha > -INFINITY) {
+                    delta *= 4;
+                    alpha = delta >= WIN_THRESHOLD ? -INFINITY : Math.max(-INFINITY, iterationScore - delta);
+                } else if (iterationScore >= beta && beta < INFINITY) {
+                    delta *= 4;
+                    beta = delta >= WIN_THRESHOLD ? INFINITY : Math.min(INFINITY, iterationScore + delta);
+                } else {
+                    break;
+                }
+            }
+            
+            // 预算用完时丢弃未完成的这一轮
+            if (aborted) {
+                break;
+            }
+            
+            bestScore = iterationScore;
+            bestMove = rootMoves[0];
+            completedDepth = depth;
+            // 第一轮总是完整搜完，之后才允许中途停止
+            abortable = true;
+            
+            if (Math.abs(bestScore) >= WIN_THRESHOLD) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * 在 (alpha, beta) 窗口内搜索一轮根节点，返回 AI 视角的得分
+     * 第一个着法用完整窗口，其余先用零窗口证明不比当前最好的着法好，证明失败时才完整重搜；
+     * alpha 随找到的更好着法提高，后面的着法都以它为界。
+     * 结束后把得分最高的着法移到最前，其余按得分(多数只是上界)排序，作为下一轮的顺序
+     */
+    private int searchRoot(int[] rootMoves, int depth, int alpha, int beta, int[] rootScores) {
+        int opponentColor = 1 - aiColor;
+        int best = -INFINITY;
+        for (int i = 0; i < rootMoves.length; i++) {
+            int cell = rootMoves[i];
+            // 模拟落子
+            makeMove(cell, aiColor);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth, 1, -beta, -alpha, opponentColor);
+            } else {
+                score = -negamax(depth, 1, -alpha - 1, -alpha, opponentColor);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth, 1, -beta, -alpha, opponentColor);
+                }
+            }
+            // 撤销落子
+            undoMove(cell);
+            
+            if (aborted) {
+                return best;
+            }
+            
+            rootScores[cell] = score;
+            if (score > best) {
+                best = score;
+                // 新的最好着法移到最前，其余着法保持原有顺序
+                System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                rootMoves[0] = cell;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        rootScores[rootMoves[0]] = INFINITY;
+        sortByScore(rootMoves, rootMoves.length, rootScores);
+        return best;
+    }
+    
+    /**
+     * 最后一轮完整搜索选出的着法(格子编号)
+     */
+    int getBestMove() {
+        return bestMove;
+    }
+    
+    int getBestScore() {
+        return bestScore;
+    }
+    
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+    
+    long getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * 叶节点静态评估次数
+     */
+    long getEvaluations() {
+        return evaluations;
+    }
+    
+    long getTtProbes() {
+        return ttProbes;
+    }
+    
+    long getTtHits() {
+        return ttHits;
+    }
+    
+    /**
+     * 发生Beta剪枝的节点数
+     */
+    long getCutoffs() {
+        return cutoffs;
+    }
+    
+    /**
+     * 叶节点查询评估缓存的次数(只有需要做连续冲四检查的叶节点才查询)
+     */
+    long getCacheProbes() {
+        return cacheProbes;
+    }
+    
+    long getCacheHits() {
+        return cacheHits;
+    }
+    
+    /**
+     * 按产生剪枝的着法序号分档的剪枝次数，第一档与 getCutoffs 之比反映着法排序的质量
+     */
+    long[] getCutoffsByIndex() {
+        return cutoffsByIndex;
+    }
+    
+    /**
+     * 搜索到达的最大层数
+     */
+    int getMaxPly() {
+        return maxPly;
+    }
+    
+    /**
+     * 负极大值形式的主要变例搜索，返回 currentColor 视角的得分
+     * 每个节点的第一个着法用完整窗口，其余用零窗口，得分落进窗口内时再用完整窗口重搜
+     */
+    private int negamax(int depth, int ply, int alpha, int beta, int currentColor) {
+        BitBoard board = searchBoard;
+        
+        // 预算用完时立即返回，结果会被丢弃
+        nodes++;
+        if (aborted || ((nodes & CHECK_INTERVAL) == 0 && outOfBudget())) {
+            aborted = true;
+            return 0;
+        }
+        if (ply > maxPly) {
+            maxPly = ply;
+        }
+        
+        // 到达搜索深度或游戏结束，轮到走棋的一方有连续冲四时按必胜计分
+        if (depth == 0) {
+            if (evaluator.threats(currentColor) == 0) {
+                return evaluate(currentColor);
+            }
+            // 连续冲四检查的结果连同评分一起缓存，同一局面再次到达时不必重做
+            long cacheKey = EvaluationCache.key(board.getHash(), currentColor);
+            cacheProbes++;
+            int cached = evaluationCache.probe(cacheKey);
+            if (cached != EvaluationCache.MISS) {
+                cacheHits++;
+                return cached;
+            }
+            int score = threatSolver.findVcf(currentColor, LEAF_VCF_DEPTH, LEAF_VCF_NODES) != ThreatSolver.NO_MOVE
+                ? VCF_WIN_SCORE : evaluate(currentColor);
+            evaluationCache.store(cacheKey, score);
+            return score;
+        }
+        
+        // 查询置换表，深度足够时直接使用或收窄窗口
+        long key = board.getHash();
+        long entry = transpositionTable.probe(key);
+        int ttMove = TranspositionTable.NO_MOVE;
+        ttProbes++;
+        if (entry != 0) {
+            ttHits++;
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int ttScore = fromTable(TranspositionTable.score(entry), ply);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.BOUND_EXACT:
+                        return ttScore;
+                    case TranspositionTable.BOUND_LOWER:
+                        alpha = Math.max(alpha, ttScore);
+                        break;
+                    case TranspositionTable.BOUND_UPPER:
+                        beta = Math.min(beta, ttScore);
+                        break;
+                    default:
+                        break;
+                }
+                if (alpha >= beta) {
+                    return ttScore;
+                }
+            }
+        }
+        int originalAlpha = alpha;
+        
+        int opponentColor = 1 - currentColor;
+        int bestScore = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        
+        // 获取所有可能的落子位置(增量维护的候选集合)，复制到本层预先分配的缓冲区
+        int moveCount = candidates.size();
+        
+        // 如果没有可能的移动，返回当前评估值
+        if (moveCount == 0) {
+            return evaluate(currentColor);
+        }
+        
+        int[] moves = moveBuffer(ply);
+        int[] scores = scoreBuffer(ply);
+        int killer0 = killers[ply][0];
+        int killer1 = killers[ply][1];
+        int[] colorHistory = history[currentColor];
+        for (int i = 0; i < moveCount; i++) {
+            int cell = candidates.get(i);
+            moves[i] = cell;
+            scores[cell] = orderScore(cell, currentColor, ttMove, killer0, killer1, colorHistory);
+        }
+        sortByScore(moves, moveCount, scores);
+        
+        for (int i = 0; i < moveCount; i++) {
+            int cell = moves[i];
+            // 模拟落子
+            makeMove(cell, currentColor);
+            
+            // 检查是否获胜
+            if (board.checkWin(cell, currentColor)) {
+                undoMove(cell);
+                return WIN_SCORE - ply * 100;
+            }
+            
+            // 递归搜索：第一个着法完整窗口，其余先用零窗口
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponentColor);
+            } else {
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, opponentColor);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponentColor);
+                }
+            }
+            
+            // 撤销落子
+            undoMove(cell);
+            
+            if (aborted) {
+                return 0;
+            }
+            
+            // 更新最佳分数
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = cell;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            
+            // Beta剪枝，记录杀手着法和历史得分
+            if (alpha >= beta) {
+                cutoffs++;
+                cutoffsByIndex[Math.min(i, cutoffsByIndex.length - 1)]++;
+                recordCutoff(cell, ply, depth, currentColor);
+                break;
+            }
+        }
+        
+        // 记录到置换表：不高于原窗口为上界，达到 beta 为下界
+        int bound = bestScore <= originalAlpha ? TranspositionTable.BOUND_UPPER
+            : bestScore >= beta ? TranspositionTable.BOUND_LOWER
+            : TranspositionTable.BOUND_EXACT;
+        transpositionTable.store(key, depth, bound, toTable(bestScore, ply), bestMove);
+        
+        return bestScore;
+    }
+    
+    /**
+     * 成五的评分按离根节点的层数计算，存入置换表前换算成离当前节点的层数，
+     * 从其他层数到达同一局面时才能换算回正确的分数
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_SCORE) {
+            return score + ply * 100;
+        }
+        if (score <= -MATE_SCORE) {
+            return score - ply * 100;
+        }
+        return score;
+    }
+    
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_SCORE) {
+            return score - ply * 100;
+        }
+        if (score <= -MATE_SCORE) {
+            return score + ply * 100;
+        }
+        return score;
+    }
+    
+    /**
+     * 着法排序分：置换表着法 > 直接成五 > 挡住对方成五 > 形成活四 > 杀手着法 > 其余按棋型和历史得分
+     * 只查棋型表，不需要试下着法
+     */
+    private int orderScore(int cell, int color, int ttMove, int killer0, int killer1, int[] colorHistory) {
+        if (cell == ttMove) {
+            return ORDER_TT;
+        }
+        
+        int ownBest = PatternTable.NONE;
+        int opponentBest = PatternTable.NONE;
+        int threat = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int own = PatternTable.shapeAt(searchBoard, cell, dir, color);
+            int opponent = PatternTable.shapeAt(searchBoard, cell, dir, 1 - color);
+            ownBest = Math.max(ownBest, own);
+            opponentBest = Math.max(opponentBest, opponent);
+            threat += ORDER_ATTACK[own] + ORDER_DEFEND[opponent];
+        }
+        
+        if (ownBest == PatternTable.FIVE) {
+            return ORDER_WIN;
+        }
+        if (opponentBest == PatternTable.FIVE) {
+            return ORDER_BLOCK;
+        }
+        if (ownBest == PatternTable.OPEN_FOUR) {
+            return ORDER_OPEN_FOUR;
+        }
+        if (cell == killer0) {
+            return ORDER_KILLER;
+        }
+        if (cell == killer1) {
+            return ORDER_KILLER - 1;
+        }
+        return (Math.min(threat, MAX_THREAT_SCORE) << 16) + colorHistory[cell];
+    }
+    
+    /**
+     * 只按棋型给出的着法分，供搜索之外挑选可能的着法(例如后台思考时猜测对手的应着)
+     */
+    static int threatScore(BitBoard board, int cell, int color) {
+        int threat = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            threat += ORDER_ATTACK[PatternTable.shapeAt(board, cell, dir, color)]
+                + ORDER_DEFEND[PatternTable.shapeAt(board, cell, dir, 1 - color)];
+        }
+        return threat;
+    }
+    
+    /**
+     * 产生剪枝的着法记为本层杀手着法，并按深度平方累加历史得分
+     */
+    private void recordCutoff(int cell, int ply, int depth, int color) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != cell) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = cell;
+        }
+        
+        int[] colorHistory = history[color];
+        colorHistory[cell] += depth * depth;
+        if (colorHistory[cell] > MAX_HISTORY) {
+            // 历史得分超出范围时整体减半，同时让旧的统计逐渐淡出
+            for (int c = 0; c < 2; c++) {
+                for (int i = 0; i < history[c].length; i++) {
+                    history[c][i] >>= 1;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 每层一个着法缓冲区，首次用到时分配，之后的搜索不再分配内存
+     */
+    private int[] moveBuffer(int ply) {
+        int[] buffer = moveBuffers[ply];
+        if (buffer == null) {
+            buffer = moveBuffers[ply] = new int[searchBoard.getCellCount()];
+        }
+        return buffer;
+    }
+    
+    /**
+     * 每层一个按格子编号索引的评分缓冲区
+     */
+    private int[] scoreBuffer(int ply) {
+        int[] buffer = scoreBuffers[ply];
+        if (buffer == null) {
+            buffer = scoreBuffers[ply] = new int[searchBoard.getCellCount()];
+        }
+        return buffer;
+    }
+    
+    /**
+     * 按 scores[cell] 从高到低做稳定的插入排序，同分时保持原有顺序
+     */
+    static void sortByScore(int[] moves, int count, int[] scores) {
+        for (int i = 1; i < count; i++) {
+            int cell = moves[i];
+            int score = scores[cell];
+            int j = i - 1;
+            while (j >= 0 && scores[moves[j]] < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = cell;
+        }
+    }
+    
+    /**
+     * color 视角的静态评分，限制在胜负阈值以内，避免与必胜/必败分数混淆
+     * 评分按 AI 视角计算后取负，两种视角的权重不对称，这样与走棋方无关
+     */
+    private int evaluate(int color) {
+        evaluations++;
+        int score = evaluator.score(aiColor);
+        score = Math.max(-WIN_THRESHOLD + 1, Math.min(WIN_THRESHOLD - 1, score));
+        return color == aiColor ? score : -score;
+    }
+    
+    private boolean outOfBudget() {
+        // 调用方放弃这次思考时连第一轮也不必搜完
+        if (control.stopped || (control.cancellation != null && control.cancellation.isCancelRequested())) {
+            return true;
+        }
+        if (!abortable) {
+            return false;
+        }
+        return System.nanoTime() >= control.deadline || (control.nodeBudget > 0 && nodes >= control.nodeBudget);
+    }
+    
+    private void makeMove(int cell, int color) {
+        searchBoard.place(cell, color);
+        evaluator.update(cell);
+        candidates.place(cell);
+    }
+    
+    private void undoMove(int cell) {
+        searchBoard.remove(cell);
+        evaluator.update(cell);
+        candidates.remove(cell);
+    }
+}
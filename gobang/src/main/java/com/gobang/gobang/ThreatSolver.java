@@ -0,0 +1,329 @@
+package com.gobang.gobang;
+
+/**
+ * 威胁空间搜索 - 只考虑进攻方的冲四/活三和防守方的被迫应对，寻找连续冲四(VCF)和连续活三(VCT)取胜
+ *
+ * 与全宽度搜索共用同一个位棋盘、评估器和候选集合，搜索过程中的落子都会在返回前撤销。
+ * 冲四和成五只可能出现在有眠三及以上棋子的线上，借助评估器维护的逐线统计只扫描这些线。
+ * VCT对防守方是保守的：防守方只要有冲四可以反击，就不认为这步活三能取胜，
+ * 因此找到的胜法都是可靠的，但可能漏掉一些。
+ */
+public class ThreatSolver {
+    public static final int NO_MOVE = TranspositionTable.NO_MOVE;
+
+    // 沿四个方向在行列上的步长
+    private static final int[] DR = {0, 1, 1, 1};
+    private static final int[] DC = {1, 0, 1, -1};
+
+    private static final int MAX_DEPTH = 32;
+
+    private final BitBoard board;
+    private final Evaluator evaluator;
+    private final CandidateSet candidates;
+    private final int size;
+
+    // 每层进攻着法、防守着法的缓冲区
+    private final int[][] attackBuffers = new int[MAX_DEPTH][];
+    private final int[][] defenseBuffers = new int[MAX_DEPTH][];
+    private final int[] fiveCells = new int[2];
+
+    private long nodes;
+    private long nodeLimit;
+
+    public ThreatSolver(BitBoard board, Evaluator evaluator, CandidateSet candidates) {
+        this.board = board;
+        this.evaluator = evaluator;
+        this.candidates = candidates;
+        this.size = board.getSize();
+    }
+
+    /**
+     * 寻找 color 方的连续冲四胜法
+     *
+     * @param maxDepth 进攻方最多落子数
+     * @param nodeLimit 搜索节点上限，超出时按未找到处理
+     * @return 胜法的第一步(格子编号)，没有找到时返回 NO_MOVE
+     */
+    public int findVcf(int color, int maxDepth, long nodeLimit) {
+        return solve(color, maxDepth, nodeLimit, false);
+    }
+
+    /**
+     * 寻找 color 方的连续活三(可夹杂冲四)胜法
+     */
+    public int findVct(int color, int maxDepth, long nodeLimit) {
+        return solve(color, maxDepth, nodeLimit, true);
+    }
+
+    /**
+     * 累计搜索的节点数
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    private int solve(int color, int maxDepth, long limit, boolean allowThrees) {
+        this.nodeLimit = nodes + limit;
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+
+        // 进攻方已能成五时直接获胜
+        if (findFives(color) > 0) {
+            return fiveCells[0];
+        }
+
+        // 防守方有两处成五点时无法全部挡住，有一处时进攻方第一步必须挡在那里
+        int threats = findFives(1 - color);
+        if (threats >= 2) {
+            return NO_MOVE;
+        }
+        return attack(color, maxDepth, 0, threats == 1 ? fiveCells[0] : NO_MOVE, allowThrees);
+    }
+
+    /**
+     * 进攻方走一步威胁，返回能取胜的着法
+     * forced 为对方的成五点时只能先挡在那里，否则依次尝试所有冲四(以及活三)
+     */
+    private int attack(int color, int depth, int ply, int forced, boolean allowThrees) {
+        if (++nodes > nodeLimit) {
+            return NO_MOVE;
+        }
+
+        int opponent = 1 - color;
+        int[] moves = buffer(attackBuffers, ply);
+        int count;
+        if (forced != NO_MOVE) {
+            moves[0] = forced;
+            count = 1;
+        } else {
+            count = generate(color, moves, allowThrees);
+        }
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int shape = bestShape(move, color);
+
+            if (shape >= PatternTable.FOUR) {
+                // 冲四：防守方只能挡在唯一的成五点上
+                place(move, color);
+                int completions = fivesThrough(move, color);
+                boolean win;
+                if (completions >= 2) {
+                    win = true;
+                } else if (completions == 0) {
+                    win = false;
+                } else {
+                    int block = fiveCells[0];
+                    place(block, opponent);
+                    int counters = fivesThrough(block, opponent);
+                    int nextForced = counters == 1 ? fiveCells[0] : NO_MOVE;
+                    win = counters < 2 && depth > 1
+                        && attack(color, depth - 1, ply + 1, nextForced, allowThrees) != NO_MOVE;
+                    remove(block);
+                }
+                remove(move);
+                if (win) {
+                    return move;
+                }
+            } else if (allowThrees && shape == PatternTable.OPEN_THREE && depth > 1) {
+                // 活三：防守方必须挡在进攻方能冲四或成活四的位置上，每种防守都要能继续取胜
+                place(move, color);
+                boolean win = !hasFour(opponent) && defendAll(move, color, depth, ply);
+                remove(move);
+                if (win) {
+                    return move;
+                }
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * 活三之后，对所有防守点逐一验证进攻方仍能取胜
+     */
+    private boolean defendAll(int move, int color, int depth, int ply) {
+        int[] defenses = buffer(defenseBuffers, ply);
+        int count = 0;
+        int row = move / size;
+        int col = move % size;
+        for (int dir = 0; dir < 4; dir++) {
+            if (PatternTable.shapeAt(board, move, dir, color) != PatternTable.OPEN_THREE) {
+                continue;
+            }
+            for (int step = -4; step <= 4; step++) {
+                int r = row + step * DR[dir];
+                int c = col + step * DC[dir];
+                if (step == 0 || r < 0 || r >= size || c < 0 || c >= size) {
+                    continue;
+                }
+                int cell = r * size + c;
+                if (board.isEmpty(cell) && PatternTable.shapeAt(board, cell, dir, color) >= PatternTable.FOUR
+                    && !contains(defenses, count, cell)) {
+                    defenses[count++] = cell;
+                }
+            }
+        }
+
+        if (count == 0) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            // 防守点本身可能形成对方的冲四，此时进攻方下一步必须先挡
+            place(defenses[i], 1 - color);
+            int counters = fivesThrough(defenses[i], 1 - color);
+            int forced = counters == 1 ? fiveCells[0] : NO_MOVE;
+            boolean win = counters < 2 && attack(color, depth - 1, ply + 1, forced, true) != NO_MOVE;
+            remove(defenses[i]);
+            if (!win) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 收集 color 方的冲四着法，allowThrees 时再加上能形成活三的候选点，冲四排在前面
+     */
+    private int generate(int color, int[] moves, boolean allowThrees) {
+        int count = 0;
+        for (int line = 0; line < board.getLineCount(); line++) {
+            if (!evaluator.hasThreat(color, line)) {
+                continue;
+            }
+            int dir = board.dirOf(line);
+            for (long empty = emptyCells(line); empty != 0; empty &= empty - 1) {
+                int cell = board.cellOf(line, Long.numberOfTrailingZeros(empty) - BitBoard.PAD);
+                if (PatternTable.shapeAt(board, cell, dir, color) >= PatternTable.FOUR
+                    && !contains(moves, count, cell)) {
+                    moves[count++] = cell;
+                }
+            }
+        }
+
+        if (allowThrees) {
+            for (int i = 0; i < candidates.size(); i++) {
+                int cell = candidates.get(i);
+                if (bestShape(cell, color) == PatternTable.OPEN_THREE) {
+                    moves[count++] = cell;
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean hasFour(int color) {
+        for (int line = 0; line < board.getLineCount(); line++) {
+            if (!evaluator.hasThreat(color, line)) {
+                continue;
+            }
+            int dir = board.dirOf(line);
+            for (long empty = emptyCells(line); empty != 0; empty &= empty - 1) {
+                int cell = board.cellOf(line, Long.numberOfTrailingZeros(empty) - BitBoard.PAD);
+                if (PatternTable.shapeAt(board, cell, dir, color) >= PatternTable.FOUR) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 整盘 color 方的成五点数，前两个记录在 fiveCells 中
+     */
+    private int findFives(int color) {
+        int count = 0;
+        for (int line = 0; line < board.getLineCount(); line++) {
+            if (!evaluator.hasThreat(color, line)) {
+                continue;
+            }
+            int dir = board.dirOf(line);
+            for (long empty = emptyCells(line); empty != 0; empty &= empty - 1) {
+                int cell = board.cellOf(line, Long.numberOfTrailingZeros(empty) - BitBoard.PAD);
+                if (PatternTable.shapeAt(board, cell, dir, color) == PatternTable.FIVE) {
+                    count = addFive(count, cell);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 经过 cell 的四条线上 color 方的成五点数，前两个记录在 fiveCells 中
+     * 新出现的成五点必然与刚落下的棋子在同一条线上，所以只需检查这四条线
+     */
+    private int fivesThrough(int cell, int color) {
+        int count = 0;
+        int row = cell / size;
+        int col = cell % size;
+        for (int dir = 0; dir < 4; dir++) {
+            for (int step = -4; step <= 4; step++) {
+                int r = row + step * DR[dir];
+                int c = col + step * DC[dir];
+                if (step == 0 || r < 0 || r >= size || c < 0 || c >= size) {
+                    continue;
+                }
+                int target = r * size + c;
+                if (board.isEmpty(target) && PatternTable.shapeAt(board, target, dir, color) == PatternTable.FIVE) {
+                    count = addFive(count, target);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 记录一个成五点，同一格在两个方向上都能成五时只算一次
+     */
+    private int addFive(int count, int cell) {
+        if ((count > 0 && fiveCells[0] == cell) || (count > 1 && fiveCells[1] == cell)) {
+            return count;
+        }
+        if (count < 2) {
+            fiveCells[count] = cell;
+        }
+        return count + 1;
+    }
+
+    /**
+     * 线编码中的空位，第 pos + PAD 位对应线上第 pos 格
+     */
+    private long emptyCells(int line) {
+        return ~(board.line(BitBoard.BLACK, line) | board.line(BitBoard.WHITE, line) | board.wall(line));
+    }
+
+    private int bestShape(int cell, int color) {
+        int best = PatternTable.NONE;
+        for (int dir = 0; dir < 4; dir++) {
+            best = Math.max(best, PatternTable.shapeAt(board, cell, dir, color));
+        }
+        return best;
+    }
+
+    private void place(int cell, int color) {
+        board.place(cell, color);
+        evaluator.update(cell);
+        candidates.place(cell);
+    }
+
+    private void remove(int cell) {
+        board.remove(cell);
+        evaluator.update(cell);
+        candidates.remove(cell);
+    }
+
+    private int[] buffer(int[][] buffers, int ply) {
+        int[] buffer = buffers[ply];
+        if (buffer == null) {
+            buffer = buffers[ply] = new int[board.getCellCount()];
+        }
+        return buffer;
+    }
+
+    private static boolean contains(int[] cells, int count, int cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
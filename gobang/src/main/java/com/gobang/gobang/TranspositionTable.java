@@ -0,0 +1,134 @@
+package com.gobang.gobang;
+
+import java.util.Arrays;
+
+/**
+ * 置换表 - 按Zobrist哈希缓存已搜索局面的深度、边界类型、评分和最佳着法
+ *
+ * 每个桶两个槽位：第一个槽按深度优先替换(同局面、空槽、旧搜索留下的条目或深度不大于新条目时覆盖，
+ * 被挤出的条目降级到第二个槽)，第二个槽总是替换。条目打包在一个long里，键和数据分开存放在两个数组中。
+ *
+ * 多个搜索线程无锁共享：键数组中存的是 key ^ data，读取时重新异或校验，
+ * 并发写入造成的键和数据不一致会被当作未命中，不会读到错位的条目。
+ */
+public class TranspositionTable {
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    public static final int NO_MOVE = -1;
+
+    // 数据布局：低32位评分 | 16位着法(格子编号+1) | 8位深度 | 2位边界类型 | 6位搜索代数
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int GENERATION_SHIFT = 58;
+    private static final int MAX_DEPTH = 0xFF;
+    private static final int GENERATION_MASK = 0x3F;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int generation;
+
+    /**
+     * @param bucketBits 桶数量的二进制位数，总条目数为 2^(bucketBits+1)，每条16字节
+     */
+    public TranspositionTable(int bucketBits) {
+        int buckets = 1 << bucketBits;
+        this.keys = new long[buckets * 2];
+        this.data = new long[buckets * 2];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * 开始新一轮搜索，旧条目在替换时优先被覆盖
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        generation = 0;
+    }
+
+    /**
+     * 查询局面，未命中时返回0
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long entry = data[index];
+        if (entry != 0 && (keys[index] ^ entry) == key) {
+            return entry;
+        }
+        entry = data[index + 1];
+        if (entry != 0 && (keys[index + 1] ^ entry) == key) {
+            return entry;
+        }
+        return 0L;
+    }
+
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = index(key);
+        long old = data[index];
+        long oldKey = keys[index] ^ old;
+        int slot;
+        if (old == 0 || oldKey == key || generation(old) != generation || depth >= depth(old)) {
+            slot = index;
+            if (old != 0 && oldKey != key) {
+                keys[index + 1] = oldKey ^ old;
+                data[index + 1] = old;
+            }
+        } else {
+            slot = index + 1;
+        }
+
+        // 新结果没有最佳着法时保留同一局面上次记录的着法
+        long previous = data[slot];
+        if (move == NO_MOVE && previous != 0 && (keys[slot] ^ previous) == key) {
+            move = move(previous);
+        }
+
+        long entry = pack(depth, bound, score, move);
+        keys[slot] = key ^ entry;
+        data[slot] = entry;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private long pack(int depth, int bound, int score, int move) {
+        return (score & 0xFFFFFFFFL)
+            | ((long) (move + 1) << MOVE_SHIFT)
+            | ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) generation << GENERATION_SHIFT);
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int move(long entry) {
+        return (int) ((entry >>> MOVE_SHIFT) & 0xFFFF) - 1;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & MAX_DEPTH);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int generation(long entry) {
+        return (int) ((entry >>> GENERATION_SHIFT) & GENERATION_MASK);
+    }
+}
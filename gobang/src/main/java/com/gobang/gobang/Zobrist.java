@@ -0,0 +1,28 @@
+package com.gobang.gobang;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist哈希键表 - 每种颜色、每个格子一个随机64位键
+ * 使用固定种子生成，同一局面在不同进程中得到相同的哈希值
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5A0B_7157_C0DE_F00DL;
+    private static final long[][] KEYS = new long[2][BitBoard.MAX_SIZE * BitBoard.MAX_SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int color = 0; color < 2; color++) {
+            for (int cell = 0; cell < KEYS[color].length; cell++) {
+                KEYS[color][cell] = random.nextLong();
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long key(int color, int cell) {
+        return KEYS[color][cell];
+    }
+}
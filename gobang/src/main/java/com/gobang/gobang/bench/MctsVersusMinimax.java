@@ -0,0 +1,108 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.AIPlayer;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.MCTSPlayer;
+import com.gobang.gobang.Move;
+import com.gobang.gobang.Player;
+import com.gobang.gobang.Stone;
+
+import java.util.SplittableRandom;
+
+/**
+ * 蒙特卡洛树搜索与 Alpha-Beta 对战 - 在 15 路和 19 路棋盘上，双方每步相同时间、相同线程数，
+ * 每个随机开局双方各执黑一次，输出 MCTS 的得分率和双方平均每步用时
+ *
+ * 用法: MctsVersusMinimax [每种棋盘的开局数] [每步毫秒数] [线程数]
+ */
+public class MctsVersusMinimax {
+    private static final int[] SIZES = {15, 19};
+    
+    // 开局时在中心附近随机摆放的棋子数
+    private static final int OPENING_STONES = 3;
+    
+    public static void main(String[] args) {
+        int openings = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long budgetMillis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        
+        for (int size : SIZES) {
+            double mctsScore = 0;
+            long[] thinkNanos = new long[2];
+            int[] moveCounts = new int[2];
+            for (int opening = 0; opening < openings; opening++) {
+                for (int mctsBlack = 0; mctsBlack < 2; mctsBlack++) {
+                    Stone mctsStone = mctsBlack == 1 ? Stone.BLACK : Stone.WHITE;
+                    MCTSPlayer mcts = new MCTSPlayer("MCTS", mctsStone);
+                    mcts.setTimeBudget(budgetMillis);
+                    mcts.setThreads(threads);
+                    mcts.setRandomSeed(opening);
+                    mcts.setVerbose(false);
+                    // 取消深度上限，两边都用满每步的时间
+                    AIPlayer minimax = new AIPlayer("AlphaBeta", opponent(mctsStone));
+                    minimax.setMaxDepth(64);
+                    minimax.setVerbose(false);
+                    minimax.setTimeBudget(budgetMillis);
+                    minimax.setThreads(threads);
+                    minimax.setRandomSeed(opening);
+                    
+                    Stone winner = play(size, opening, mcts, minimax, thinkNanos, moveCounts);
+                    mctsScore += winner == mctsStone ? 1 : winner == Stone.EMPTY ? 0.5 : 0;
+                    System.out.printf("%d路 开局%d MCTS执%s: %s%n", size, opening,
+                        mctsStone == Stone.BLACK ? "黑" : "白",
+                        winner == Stone.EMPTY ? "平局" : winner == mctsStone ? "MCTS胜" : "AlphaBeta胜");
+                    mcts.setThreads(1);
+                    minimax.setThreads(1);
+                }
+            }
+            System.out.printf("%d路: MCTS得分 %.1f/%d (%.1f%%), 平均每步 MCTS %.0fms, AlphaBeta %.0fms%n",
+                size, mctsScore, openings * 2, mctsScore * 50 / openings,
+                thinkNanos[0] / 1e6 / Math.max(1, moveCounts[0]),
+                thinkNanos[1] / 1e6 / Math.max(1, moveCounts[1]));
+        }
+    }
+    
+    /**
+     * 下完一盘，返回胜方，平局返回 Stone.EMPTY
+     * thinkNanos 和 moveCounts 的下标 0 记录 MCTS，1 记录 AlphaBeta
+     */
+    private static Stone play(int size, int opening, Player mcts, Player minimax,
+                              long[] thinkNanos, int[] moveCounts) {
+        Board board = new Board(size);
+        Stone turn = Stone.BLACK;
+        
+        // 同一个开局编号总是摆出相同的开局
+        SplittableRandom random = new SplittableRandom(opening);
+        for (int i = 0; i < OPENING_STONES; i++) {
+            int row;
+            int col;
+            do {
+                row = size / 2 - 2 + random.nextInt(5);
+                col = size / 2 - 2 + random.nextInt(5);
+            } while (!board.placeStone(row, col, turn));
+            turn = opponent(turn);
+        }
+        
+        while (!board.isFull()) {
+            int index = mcts.getStone() == turn ? 0 : 1;
+            Player player = index == 0 ? mcts : minimax;
+            long start = System.nanoTime();
+            Move move = player.getMove(board);
+            thinkNanos[index] += System.nanoTime() - start;
+            moveCounts[index]++;
+            if (!board.placeStone(move.getRow(), move.getCol(), turn)) {
+                // 非法着法判负
+                return opponent(turn);
+            }
+            if (board.checkWin(move.getRow(), move.getCol(), turn)) {
+                return turn;
+            }
+            turn = opponent(turn);
+        }
+        return Stone.EMPTY;
+    }
+    
+    private static Stone opponent(Stone stone) {
+        return stone == Stone.BLACK ? Stone.WHITE : Stone.BLACK;
+    }
+}
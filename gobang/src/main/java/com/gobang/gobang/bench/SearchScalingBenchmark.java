@@ -0,0 +1,92 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.AIPlayer;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.Stone;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 多线程搜索扩展性测试 - 在固定局面上分别用 1, 2, 4 ... 个线程搜索，
+ * 输出固定时间内的节点速度和达到固定深度所需时间，
+ * 以及主搜索线程平均每个节点分配的字节数(应接近0，只有每次思考开始时的固定开销)
+ *
+ * 用法: SearchScalingBenchmark [最大线程数] [每次思考毫秒数] [固定深度]
+ */
+public class SearchScalingBenchmark {
+    // 中局测试局面，黑白交替落子，黑先
+    private static final int[][] POSITION = {
+        {7, 7}, {7, 8}, {8, 8}, {6, 6}, {8, 6}, {8, 7}, {9, 7}, {6, 9},
+        {6, 7}, {10, 6}, {5, 8}, {9, 9}
+    };
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long budgetMillis = args.length > 1 ? Long.parseLong(args[1]) : 3000;
+        int fixedDepth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        System.out.printf("%-8s %-14s %-10s %-14s %-10s%n",
+            "线程数", "节点/秒", "完成深度", "到深度" + fixedDepth + "(ms)", "字节/节点");
+        double baseline = 0;
+        // 预热：完成类加载和JIT编译，避免计入第一次测量
+        AIPlayer warmup = newPlayer(1);
+        warmup.setTimeBudget(budgetMillis);
+        warmup.getMove(createBoard());
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            // 固定时间：总节点速度和完成的深度
+            AIPlayer player = newPlayer(threads);
+            player.setMaxDepth(64);
+            player.setTimeBudget(budgetMillis);
+            Board board = createBoard();
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            player.getMove(board);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long allocated = allocatedBytes() - allocatedBefore;
+            long nodes = player.getLastNodes();
+            double nodesPerSecond = nodes / seconds;
+            int depth = player.getLastDepth();
+            player.setThreads(1);
+
+            // 固定深度：达到该深度所需时间
+            player = newPlayer(threads);
+            player.setMaxDepth(fixedDepth);
+            player.setTimeBudget(Long.MAX_VALUE / 2_000_000L);
+            start = System.nanoTime();
+            player.getMove(createBoard());
+            long toDepthMillis = (System.nanoTime() - start) / 1_000_000L;
+
+            if (threads == 1) {
+                baseline = nodesPerSecond;
+            }
+            System.out.printf("%-8d %-14.0f %-10d %-14d %-10.3f (x%.2f)%n",
+                threads, nodesPerSecond, depth, toDepthMillis,
+                (double) allocated / Math.max(1, nodes), nodesPerSecond / baseline);
+            player.setThreads(1);
+        }
+    }
+
+    /**
+     * 当前线程累计分配的字节数
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    private static AIPlayer newPlayer(int threads) {
+        AIPlayer player = new AIPlayer("bench", Stone.WHITE);
+        player.setThreads(threads);
+        player.setVerbose(false); // 每步的打印不计入分配和时间
+        return player;
+    }
+
+    private static Board createBoard() {
+        Board board = new Board();
+        for (int i = 0; i < POSITION.length; i++) {
+            board.placeStone(POSITION[i][0], POSITION[i][1], i % 2 == 0 ? Stone.BLACK : Stone.WHITE);
+        }
+        return board;
+    }
+}
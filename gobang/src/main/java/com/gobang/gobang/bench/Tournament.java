@@ -0,0 +1,309 @@
+package com.gobang.gobang.bench;
+
+import com.gobang.gobang.AIPlayer;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.EvaluationWeights;
+import com.gobang.gobang.Move;
+import com.gobang.gobang.Stone;
+import com.gobang.gobang.record.GameRecordFormat;
+import com.gobang.gobang.record.GameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 自对弈锦标赛 - 两种 AIPlayer 设置在所有核心上并行对弈，用于判断一次修改是否让 AI 变强或变快
+ *
+ * 每个随机开局下两盘，双方轮流执黑；相同的开局种子总是得到相同的开局序列。
+ * 结束后输出 A 方的胜和负、Elo 差及 95% 置信区间、双方每步用时分布，
+ * 所有对局(包括开局摆放的棋子)按棋谱格式写入输出文件。
+ *
+ * 设置写法: depth=6,time=200,nodes=0 (搜索深度、每步毫秒数、每步节点数，0 表示不限)，
+ * 还可以加上 weights=文件 指定评估权重，用来检验 EvaluationTuner 调优的效果。
+ * 并行对弈时各局互相抢占 CPU，要得到可复现的结果应限制节点数而不是时间。
+ *
+ * 用法: Tournament [局数] [A的设置] [B的设置] [棋盘大小] [开局种子] [棋谱文件]
+ */
+public class Tournament {
+    // 开局时在中心附近随机摆放的棋子数
+    private static final int OPENING_STONES = 3;
+    
+    // 每个线程的置换表: 2^(16+5) 字节 = 2MB
+    private static final int TT_BUCKET_BITS = 16;
+    
+    private static final int[] PERCENTILES = {50, 90, 99};
+    
+    /**
+     * 一方的搜索设置
+     */
+    private static final class Settings {
+        int depth = 6;
+        long timeMillis = 200;
+        long nodes;
+        Path weights; // 为 null 时使用 AIPlayer 的默认权重
+        EvaluationWeights evaluationWeights;
+        
+        static Settings parse(String spec) throws IOException {
+            Settings settings = new Settings();
+            for (String part : spec.split(",")) {
+                String[] pair = part.split("=", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("无法解析设置: " + part);
+                }
+                String value = pair[1].trim();
+                switch (pair[0].trim()) {
+                    case "depth": settings.depth = Integer.parseInt(value); break;
+                    case "time": settings.timeMillis = Long.parseLong(value); break;
+                    case "nodes": settings.nodes = Long.parseLong(value); break;
+                    case "weights": settings.weights = Path.of(value); break;
+                    default: throw new IllegalArgumentException("未知的设置项: " + pair[0]);
+                }
+            }
+            if (settings.weights != null) {
+                settings.evaluationWeights = EvaluationWeights.load(settings.weights);
+            }
+            return settings;
+        }
+        
+        void apply(AIPlayer player) {
+            player.setMaxDepth(depth);
+            player.setTimeBudget(timeMillis);
+            player.setNodeBudget(nodes);
+            if (evaluationWeights != null) {
+                player.setEvaluationWeights(evaluationWeights);
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return "depth=" + depth + ",time=" + timeMillis + ",nodes=" + nodes
+                + (weights != null ? ",weights=" + weights : "");
+        }
+    }
+    
+    /**
+     * 一局的结果，latency 下标 0 为 A 方，1 为 B 方，单位纳秒
+     */
+    private static final class GameResult {
+        final int[] cells;
+        final int moveCount;
+        final Stone winner; // 平局为 Stone.EMPTY
+        final boolean aBlack;
+        final long[][] latency = new long[2][];
+        
+        GameResult(int[] cells, int moveCount, Stone winner, boolean aBlack, long[][] latency, int[] latencyCount) {
+            this.cells = cells;
+            this.moveCount = moveCount;
+            this.winner = winner;
+            this.aBlack = aBlack;
+            for (int side = 0; side < 2; side++) {
+                this.latency[side] = Arrays.copyOf(latency[side], latencyCount[side]);
+            }
+        }
+        
+        /**
+         * A 方这一局的得分: 胜 1，平 0.5，负 0
+         */
+        double scoreOfA() {
+            if (winner == Stone.EMPTY) {
+                return 0.5;
+            }
+            return (winner == Stone.BLACK) == aBlack ? 1 : 0;
+        }
+    }
+    
+    /**
+     * 每个工作线程复用的四个玩家(A/B 各执黑白)，避免每局重新分配置换表
+     */
+    private static final class Players {
+        final AIPlayer[][] byColor = new AIPlayer[2][2]; // [A=0/B=1][黑=0/白=1]
+        
+        Players(Settings a, Settings b) {
+            for (int side = 0; side < 2; side++) {
+                for (int color = 0; color < 2; color++) {
+                    AIPlayer player = new AIPlayer(side == 0 ? "A" : "B",
+                        color == 0 ? Stone.BLACK : Stone.WHITE, TT_BUCKET_BITS);
+                    (side == 0 ? a : b).apply(player);
+                    player.setVerbose(false);
+                    byColor[side][color] = player;
+                }
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Settings a = Settings.parse(args.length > 1 ? args[1] : "depth=6,time=200");
+        Settings b = Settings.parse(args.length > 2 ? args[2] : "depth=4,time=200");
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+        Path output = Path.of(args.length > 5 ? args[5] : "tournament.gbr");
+        int threads = Runtime.getRuntime().availableProcessors();
+        
+        System.out.printf("A: %s%nB: %s%n%d 局, %d路棋盘, %d 个线程, 开局种子 %d%n",
+            a, b, games, size, threads, seed);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Players> players = ThreadLocal.withInitial(() -> new Players(a, b));
+        ExecutorCompletionService<GameResult> completion = new ExecutorCompletionService<>(pool);
+        for (int game = 0; game < games; game++) {
+            int opening = game / 2;
+            boolean aBlack = game % 2 == 0;
+            completion.submit(() -> play(players.get(), size, seed + opening, aBlack));
+        }
+        
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        double sumSquares = 0;
+        long[][] latency = new long[2][1024];
+        int[] latencyCount = new int[2];
+        long start = System.nanoTime();
+        try (GameRecordWriter writer = GameRecordWriter.append(output)) {
+            for (int finished = 1; finished <= games; finished++) {
+                GameResult result = completion.take().get();
+                writer.writeGame(size, result.cells, result.moveCount, GameRecordFormat.resultOf(result.winner));
+                
+                double score = result.scoreOfA();
+                sumSquares += score * score;
+                if (score == 1) {
+                    wins++;
+                } else if (score == 0) {
+                    losses++;
+                } else {
+                    draws++;
+                }
+                for (int side = 0; side < 2; side++) {
+                    int count = result.latency[side].length;
+                    if (latencyCount[side] + count > latency[side].length) {
+                        latency[side] = Arrays.copyOf(latency[side],
+                            Math.max(latency[side].length * 2, latencyCount[side] + count));
+                    }
+                    System.arraycopy(result.latency[side], 0, latency[side], latencyCount[side], count);
+                    latencyCount[side] += count;
+                }
+                
+                if (finished % Math.max(1, games / 10) == 0 || finished == games) {
+                    System.out.printf("已完成 %d/%d 局: A 胜 %d 平 %d 负 %d, 用时 %.1f秒%n",
+                        finished, games, wins, draws, losses, (System.nanoTime() - start) / 1e9);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        printElo(wins, draws, losses, sumSquares);
+        System.out.println("每步用时(ms):");
+        printLatency("A", latency[0], latencyCount[0]);
+        printLatency("B", latency[1], latencyCount[1]);
+        System.out.println("棋谱已写入 " + output.toAbsolutePath());
+    }
+    
+    /**
+     * 下完一局，开局由 openingSeed 决定
+     */
+    private static GameResult play(Players players, int size, long openingSeed, boolean aBlack) {
+        Board board = new Board(size);
+        int[] cells = new int[size * size];
+        int moveCount = 0;
+        long[][] latency = new long[2][size * size / 2 + 1];
+        int[] latencyCount = new int[2];
+        for (AIPlayer[] side : players.byColor) {
+            for (AIPlayer player : side) {
+                player.newGame();
+            }
+        }
+        
+        Stone turn = Stone.BLACK;
+        SplittableRandom random = new SplittableRandom(openingSeed);
+        for (int i = 0; i < OPENING_STONES; i++) {
+            int row;
+            int col;
+            do {
+                row = size / 2 - 2 + random.nextInt(5);
+                col = size / 2 - 2 + random.nextInt(5);
+            } while (!board.placeStone(row, col, turn));
+            cells[moveCount++] = row * size + col;
+            turn = opponent(turn);
+        }
+        
+        Stone winner = Stone.EMPTY;
+        while (!board.isFull()) {
+            int side = (turn == Stone.BLACK) == aBlack ? 0 : 1;
+            AIPlayer player = players.byColor[side][turn == Stone.BLACK ? 0 : 1];
+            long begin = System.nanoTime();
+            Move move = player.getMove(board);
+            latency[side][latencyCount[side]++] = System.nanoTime() - begin;
+            if (!board.placeStone(move.getRow(), move.getCol(), turn)) {
+                // 非法着法判负
+                winner = opponent(turn);
+                break;
+            }
+            cells[moveCount++] = move.getRow() * size + move.getCol();
+            if (board.checkWin(move.getRow(), move.getCol(), turn)) {
+                winner = turn;
+                break;
+            }
+            turn = opponent(turn);
+        }
+        return new GameResult(cells, moveCount, winner, aBlack, latency, latencyCount);
+    }
+    
+    /**
+     * 由 A 方的平均得分换算 Elo 差，置信区间用每局得分的样本方差按正态近似计算
+     */
+    private static void printElo(int wins, int draws, int losses, double sumSquares) {
+        int games = wins + draws + losses;
+        double score = (wins + draws * 0.5) / games;
+        double variance = Math.max(0, sumSquares / games - score * score);
+        double margin = 1.96 * Math.sqrt(variance / games);
+        System.out.printf("A 对 B: 胜 %d 平 %d 负 %d, 得分率 %.1f%% ± %.1f%%%n",
+            wins, draws, losses, score * 100, margin * 100);
+        System.out.printf("Elo 差: %s (95%% 置信区间 %s ~ %s)%n",
+            formatElo(elo(score)), formatElo(elo(score - margin)), formatElo(elo(score + margin)));
+    }
+    
+    private static double elo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400 * Math.log10(1 / score - 1);
+    }
+    
+    private static String formatElo(double elo) {
+        return Double.isInfinite(elo) ? (elo > 0 ? "+∞" : "-∞") : String.format("%+.0f", elo);
+    }
+    
+    private static void printLatency(String name, long[] nanos, int count) {
+        if (count == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long value : sorted) {
+            total += value;
+        }
+        StringBuilder line = new StringBuilder(String.format("  %s: %d 步, 平均 %.1f",
+            name, count, total / 1e6 / count));
+        for (int percentile : PERCENTILES) {
+            int index = Math.min(count - 1, (int) Math.ceil(count * percentile / 100.0) - 1);
+            line.append(String.format(", p%d %.1f", percentile, sorted[index] / 1e6));
+        }
+        line.append(String.format(", 最大 %.1f", sorted[count - 1] / 1e6));
+        System.out.println(line);
+    }
+    
+    private static Stone opponent(Stone stone) {
+        return stone == Stone.BLACK ? Stone.WHITE : Stone.BLACK;
+    }
+}
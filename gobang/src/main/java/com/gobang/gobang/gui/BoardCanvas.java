@@ -0,0 +1,225 @@
+package com.gobang.gobang.gui;
+
+import com.gobang.gobang.Stone;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * 棋盘画布 - 整个棋盘只用一个组件绘制
+ *
+ * 木纹底色、网格线和星位预先画到一张背景图上，每次绘制只贴图；
+ * 棋子也预先画好黑白两张小图。落子、高亮和悬停只重绘所在的一格，
+ * paintComponent 只画裁剪区域内的格子。鼠标位置由 rowAt/colAt 换算成格子，
+ * 棋子画在格子中心，网格线穿过格子中心。
+ */
+class BoardCanvas extends JComponent {
+    private static final Color WOOD = new Color(238, 188, 103);
+    private static final Color HOVER = new Color(255, 255, 255, 100); // 半透明白色悬停效果
+    private static final Color HIGHLIGHT = new Color(220, 20, 60);
+    private static final BasicStroke THIN = new BasicStroke(1);
+    private static final BasicStroke THICK = new BasicStroke(2);
+    
+    // 棋子直径占格子的比例
+    private static final double STONE_RATIO = 0.84;
+    
+    private final int size;
+    private final int cellSize;
+    private final Stone[][] stones;
+    private final boolean[][] highlighted;
+    private int hoverRow = -1;
+    private int hoverCol = -1;
+    
+    // 按当前显示设备创建的缓存图像，第一次绘制时生成
+    private BufferedImage background;
+    private BufferedImage blackStone;
+    private BufferedImage whiteStone;
+    
+    BoardCanvas(int size, int cellSize) {
+        this.size = size;
+        this.cellSize = cellSize;
+        this.stones = new Stone[size][size];
+        this.highlighted = new boolean[size][size];
+        for (Stone[] row : stones) {
+            Arrays.fill(row, Stone.EMPTY);
+        }
+        setPreferredSize(new Dimension(size * cellSize, size * cellSize));
+        setOpaque(true);
+    }
+    
+    /**
+     * 像素坐标所在的行，不在棋盘上时返回 -1
+     */
+    int rowAt(int y) {
+        return y >= 0 && y < size * cellSize ? y / cellSize : -1;
+    }
+    
+    /**
+     * 像素坐标所在的列，不在棋盘上时返回 -1
+     */
+    int colAt(int x) {
+        return x >= 0 && x < size * cellSize ? x / cellSize : -1;
+    }
+    
+    void setStone(int row, int col, Stone stone) {
+        if (stones[row][col] != stone) {
+            stones[row][col] = stone;
+            repaintCell(row, col);
+        }
+    }
+    
+    void setHighlighted(int row, int col, boolean value) {
+        if (highlighted[row][col] != value) {
+            highlighted[row][col] = value;
+            repaintCell(row, col);
+        }
+    }
+    
+    /**
+     * 设置悬停的格子，row 为 -1 时取消悬停
+     */
+    void setHover(int row, int col) {
+        if (row == hoverRow && col == hoverCol) {
+            return;
+        }
+        if (hoverRow >= 0) {
+            repaintCell(hoverRow, hoverCol);
+        }
+        hoverRow = row;
+        hoverCol = row >= 0 ? col : -1;
+        if (hoverRow >= 0) {
+            repaintCell(hoverRow, hoverCol);
+        }
+    }
+    
+    /**
+     * 清除所有棋子、高亮和悬停，只重绘有变化的格子
+     */
+    void clear() {
+        setHover(-1, -1);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                setStone(i, j, Stone.EMPTY);
+                setHighlighted(i, j, false);
+            }
+        }
+    }
+    
+    private void repaintCell(int row, int col) {
+        repaint(col * cellSize, row * cellSize, cellSize, cellSize);
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (background == null) {
+            createImages();
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.drawImage(background, 0, 0, null);
+        
+        // 只画与裁剪区域相交的格子
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height - 1) / cellSize);
+        int firstCol = Math.max(0, clip.x / cellSize);
+        int lastCol = Math.min(size - 1, (clip.x + clip.width - 1) / cellSize);
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int diameter = (int) (cellSize * STONE_RATIO);
+        int inset = (cellSize - diameter) / 2;
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                int x = j * cellSize;
+                int y = i * cellSize;
+                Stone stone = stones[i][j];
+                if (stone == Stone.BLACK) {
+                    g2d.drawImage(blackStone, x + inset, y + inset, null);
+                } else if (stone == Stone.WHITE) {
+                    g2d.drawImage(whiteStone, x + inset, y + inset, null);
+                } else if (i == hoverRow && j == hoverCol) {
+                    g2d.setColor(HOVER);
+                    g2d.fillOval(x + inset, y + inset, diameter, diameter);
+                }
+                if (highlighted[i][j]) {
+                    g2d.setColor(HIGHLIGHT);
+                    g2d.setStroke(THICK);
+                    g2d.drawOval(x + inset, y + inset, diameter, diameter);
+                }
+            }
+        }
+    }
+    
+    private void createImages() {
+        int width = size * cellSize;
+        int diameter = (int) (cellSize * STONE_RATIO);
+        
+        BufferedImage image = compatibleImage(width, width, Transparency.OPAQUE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(getParent() != null ? getParent().getBackground() : WOOD);
+        g2d.fillRect(0, 0, width, width);
+        
+        // 绘制棋盘背景（木纹效果模拟）
+        g2d.setColor(WOOD);
+        g2d.fillRoundRect(0, 0, width, width, 10, 10);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(THICK);
+        g2d.drawRoundRect(1, 1, width - 2, width - 2, 10, 10);
+        
+        // 绘制网格线，边缘线加粗
+        int half = cellSize / 2;
+        int end = (size - 1) * cellSize + half;
+        for (int i = 0; i < size; i++) {
+            int offset = i * cellSize + half;
+            g2d.setStroke(i == 0 || i == size - 1 ? THICK : THIN);
+            g2d.drawLine(half, offset, end, offset);
+            g2d.drawLine(offset, half, offset, end);
+        }
+        
+        // 绘制天元和星位（棋盘上的小圆点）
+        for (int i = 3; i < size; i += 4) {
+            for (int j = 3; j < size; j += 4) {
+                g2d.fillOval(j * cellSize + half - 4, i * cellSize + half - 4, 8, 8);
+            }
+        }
+        g2d.dispose();
+        background = image;
+        
+        blackStone = stoneImage(diameter, new Color(90, 90, 90), Color.BLACK);
+        whiteStone = stoneImage(diameter, Color.WHITE, new Color(200, 200, 200));
+    }
+    
+    /**
+     * 带径向渐变的棋子小图，透明背景
+     */
+    private BufferedImage stoneImage(int diameter, Color light, Color dark) {
+        BufferedImage image = compatibleImage(diameter, diameter, Transparency.TRANSLUCENT);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        float radius = diameter / 2f;
+        g2d.setPaint(new RadialGradientPaint(radius * 0.7f, radius * 0.7f, radius * 1.2f,
+            new float[] {0f, 1f}, new Color[] {light, dark}));
+        g2d.fillOval(0, 0, diameter - 1, diameter - 1);
+        g2d.setColor(Color.DARK_GRAY);
+        g2d.setStroke(THIN);
+        g2d.drawOval(0, 0, diameter - 1, diameter - 1);
+        g2d.dispose();
+        return image;
+    }
+    
+    /**
+     * 创建与显示设备格式相同的图像，Java2D 会把不再改变的这种图像缓存到显存
+     */
+    private BufferedImage compatibleImage(int width, int height, int transparency) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config != null) {
+            return config.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height,
+            transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
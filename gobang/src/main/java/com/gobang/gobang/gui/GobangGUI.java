@@ -2,6 +2,8 @@ package com.gobang.gobang.gui;
 
 import com.gobang.*;
 import com.gobang.gobang.audio.SoundManager;
+import com.gobang.gobang.record.GameRecordFormat;
+import com.gobang.gobang.record.GameRecordWriter;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -10,7 +12,15 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.List;
 
 public class GobangSwingGUI extends JFrame {
@@ -19,12 +29,21 @@ public class GobangSwingGUI extends JFrame {
     private static final int BOARD_WIDTH = CELL_SIZE * BOARD_SIZE;
     private static final int BOARD_HEIGHT = CELL_SIZE * BOARD_SIZE;
     
+    // 工作目录下有开局库文件时AI使用它，由 OpeningBookBuilder 生成
+    private static final Path OPENING_BOOK = Path.of("gobang.book");
+    
     private Board board;
     private Player humanPlayer;
     private Player aiPlayer;
     private Player currentPlayer;
     
-    private CellButton[][] cellButtons;
+    // AI正在进行的思考，只在EDT线程中读写
+    private CompletableFuture<Move> pendingAiMove;
+    
+    // AI思考失败后仍是AI的回合，点击棋盘重试或悔棋，只在EDT线程中读写
+    private boolean aiFailed;
+    
+    private BoardCanvas boardCanvas;
     private JLabel statusLabel;
     private JLabel scoreLabel;
     private JButton undoButton;
@@ -37,6 +56,14 @@ public class GobangSwingGUI extends JFrame {
     
     // 记录历史步骤用于悔棋
     private Stack<Move> moveHistory = new Stack<>();
+    private JTextArea historyArea;
+    
+    // 每局结束时追加到工作目录下的棋谱文件
+    private static final Path RECORD_FILE = Path.of("gobang.gbr");
+    
+    // 当前对局写入前棋谱文件的长度，还没写入时为 -1
+    // 悔棋后重新结束的对局截回这个长度再写，不会重复追加同一局
+    private long recordOffset = -1;
 
     public GobangSwingGUI(SoundManager soundManager) {
         this.soundManager = soundManager;
@@ -47,7 +74,12 @@ public class GobangSwingGUI extends JFrame {
         // 初始化游戏模型
         board = new Board();
         humanPlayer = new HumanPlayer("玩家", Stone.BLACK);
-        aiPlayer = new AIPlayer("AI", Stone.WHITE);
+        AIPlayer ai = new AIPlayer("AI", Stone.WHITE);
+        ai.setPondering(true); // 玩家思考期间AI在后台搜索可能的应着
+        if (Files.exists(OPENING_BOOK)) {
+            ai.setOpeningBook(OpeningBook.open(OPENING_BOOK));
+        }
+        aiPlayer = ai;
         currentPlayer = humanPlayer;
         
         // 设置窗口
@@ -114,7 +146,7 @@ public class GobangSwingGUI extends JFrame {
         // 游戏历史面板
         JPanel historyPanel = new JPanel(new BorderLayout());
         historyPanel.setBorder(BorderFactory.createTitledBorder("游戏历史"));
-        JTextArea historyArea = new JTextArea();
+        historyArea = new JTextArea();
         historyArea.setEditable(false);
         historyArea.setLineWrap(true);
         historyArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
@@ -122,91 +154,56 @@ public class GobangSwingGUI extends JFrame {
         historyScrollPane.setPreferredSize(new Dimension(180, 180));
         historyPanel.add(historyScrollPane, BorderLayout.CENTER);
         
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(difficultyPanel, BorderLayout.NORTH);
+        bottomPanel.add(historyPanel, BorderLayout.CENTER);
+        
         sidePanel.add(titleLabel, BorderLayout.NORTH);
         sidePanel.add(infoPanel, BorderLayout.CENTER);
-        sidePanel.add(difficultyPanel, BorderLayout.SOUTH);
+        sidePanel.add(bottomPanel, BorderLayout.SOUTH);
         
         return sidePanel;
     }
     
-    private JPanel createBoardView() {
-        JPanel boardPanel = new JPanel() {
+    /**
+     * 棋盘是单个画布组件，鼠标位置换算成格子，落子和悬停只重绘所在的格子
+     */
+    private JComponent createBoardView() {
+        boardCanvas = new BoardCanvas(BOARD_SIZE, CELL_SIZE);
+        MouseAdapter mouseHandler = new MouseAdapter() {
             @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                // 绘制棋盘背景（木纹效果模拟）
-                g2d.setColor(new Color(238, 188, 103));
-                g2d.fillRoundRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT, 10, 10);
-                g2d.setColor(Color.BLACK);
-                g2d.setStroke(new BasicStroke(2));
-                g2d.drawRoundRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT, 10, 10);
-                
-                // 绘制网格线
-                for (int i = 0; i < BOARD_SIZE; i++) {
-                    for (int j = 0; j < BOARD_SIZE; j++) {
-                        // 边缘线加粗
-                        if (i == 0 || i == BOARD_SIZE - 1) {
-                            g2d.setStroke(new BasicStroke(2));
-                        } else {
-                            g2d.setStroke(new BasicStroke(1));
-                        }
-                        
-                        if (j == 0 || j == BOARD_SIZE - 1) {
-                            g2d.setStroke(new BasicStroke(2));
-                        } else {
-                            g2d.setStroke(new BasicStroke(1));
-                        }
-                        
-                        // 绘制横线
-                        g2d.drawLine(j * CELL_SIZE, i * CELL_SIZE, j * CELL_SIZE, (i + 1) * CELL_SIZE);
-                        // 绘制竖线
-                        g2d.drawLine(j * CELL_SIZE, i * CELL_SIZE, (j + 1) * CELL_SIZE, i * CELL_SIZE);
-                        
-                        // 绘制天元和星位（棋盘上的小圆点）
-                        if ((i == 3 || i == 7 || i == 11) && (j == 3 || j == 7 || j == 11)) {
-                            g2d.fillOval(j * CELL_SIZE - 4, i * CELL_SIZE - 4, 8, 8);
-                        }
-                    }
+            public void mouseMoved(MouseEvent e) {
+                int row = boardCanvas.rowAt(e.getY());
+                int col = boardCanvas.colAt(e.getX());
+                if (row >= 0 && col >= 0 && !gameOver && currentPlayer == humanPlayer
+                    && board.getStone(row, col) == Stone.EMPTY) {
+                    boardCanvas.setHover(row, col);
+                } else {
+                    boardCanvas.setHover(-1, -1);
                 }
             }
-        };
-        
-        boardPanel.setPreferredSize(new Dimension(BOARD_WIDTH, BOARD_HEIGHT));
-        boardPanel.setLayout(null);
-        boardPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-        
-        // 创建单元格按钮
-        cellButtons = new CellButton[BOARD_SIZE][BOARD_SIZE];
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                CellButton cell = new CellButton(i, j);
-                cell.setBounds(j * CELL_SIZE, i * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-                cell.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mouseEntered(MouseEvent e) {
-                        if (!gameOver && currentPlayer == humanPlayer && 
-                            board.getGrid()[i][j] == Stone.EMPTY) {
-                            cell.setOpaque(true);
-                            cell.setBackground(new Color(255, 255, 255, 100)); // 半透明白色悬停效果
-                        }
-                    }
-                    
-                    @Override
-                    public void mouseExited(MouseEvent e) {
-                        cell.setOpaque(false);
-                        cell.setBackground(null);
-                    }
-                });
-                
-                cell.addActionListener(e -> handleCellClick(cell.getRow(), cell.getCol()));
-                boardPanel.add(cell);
-                cellButtons[i][j] = cell;
+            
+            @Override
+            public void mouseExited(MouseEvent e) {
+                boardCanvas.setHover(-1, -1);
             }
-        }
+            
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = boardCanvas.rowAt(e.getY());
+                int col = boardCanvas.colAt(e.getX());
+                if (SwingUtilities.isLeftMouseButton(e) && row >= 0 && col >= 0) {
+                    boardCanvas.setHover(-1, -1);
+                    handleCellClick(row, col);
+                }
+            }
+        };
+        boardCanvas.addMouseListener(mouseHandler);
+        boardCanvas.addMouseMotionListener(mouseHandler);
         
+        // 固定大小居中，窗口边距不改变格子的换算
+        JPanel boardPanel = new JPanel(new GridBagLayout());
+        boardPanel.add(boardCanvas);
         return boardPanel;
     }
     
@@ -242,13 +239,25 @@ public class GobangSwingGUI extends JFrame {
     }
     
     private void handleCellClick(int row, int col) {
-        if (gameOver || currentPlayer != humanPlayer) {
+        if (gameOver) {
+            return;
+        }
+        
+        // 不让玩家连走两步(着法记录按黑白交替解读)，AI思考失败时点击棋盘重新让AI思考
+        if (aiFailed && currentPlayer == aiPlayer) {
+            aiFailed = false;
+            statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
+            requestAiMove();
+            return;
+        }
+        if (currentPlayer != humanPlayer) {
             return;
         }
         
         if (board.placeStone(row, col, humanPlayer.getStone())) {
             // 记录移动历史
             moveHistory.push(new Move(row, col));
+            appendHistory(moveHistory.size(), row, col, humanPlayer.getStone());
             undoButton.setEnabled(true);
             
             // 更新UI
@@ -263,6 +272,7 @@ public class GobangSwingGUI extends JFrame {
             if (board.checkWin(row, col, humanPlayer.getStone())) {
                 statusLabel.setText("游戏结束: " + humanPlayer.getName() + "获胜!");
                 gameOver = true;
+                saveRecord(GameRecordFormat.resultOf(humanPlayer.getStone()));
                 if (soundEnabled) {
                     soundManager.playWinSound();
                 }
@@ -274,66 +284,101 @@ public class GobangSwingGUI extends JFrame {
             if (board.isFull()) {
                 statusLabel.setText("游戏结束: 平局!");
                 gameOver = true;
+                saveRecord(GameRecordFormat.RESULT_DRAW);
                 return;
             }
             
             // 切换到AI回合
             switchPlayer();
             statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
-            
-            // AI思考并落子（开启新线程避免界面卡顿）
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500); // 延迟500毫秒，模拟AI思考时间
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-                
-                Move aiMove = aiPlayer.getMove(board);
-                board.placeStone(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
-                // 记录AI移动
-                moveHistory.push(aiMove);
-                
-                // 在EDT线程中更新UI
-                SwingUtilities.invokeLater(() -> {
-                    undoButton.setEnabled(true);
-                    placeStoneUI(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
-                    
-                    // 播放落子音效
-                    if (soundEnabled) {
-                        soundManager.playPlaceSound();
-                    }
-                    
-                    // 检查AI是否获胜
-                    if (board.checkWin(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone())) {
-                        statusLabel.setText("游戏结束: " + aiPlayer.getName() + "获胜!");
-                        gameOver = true;
-                        if (soundEnabled) {
-                            soundManager.playWinSound();
-                        }
-                        highlightWinningLine(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
-                        return;
-                    }
-                    
-                    // 检查平局
-                    if (board.isFull()) {
-                        statusLabel.setText("游戏结束: 平局!");
-                        gameOver = true;
-                        return;
-                    }
-                    
-                    // 切换回玩家回合
-                    switchPlayer();
-                    statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
-                });
-            }).start();
+            requestAiMove();
+        }
+    }
+    
+    /**
+     * AI在后台线程池中思考（避免界面卡顿），结果回到EDT线程落子
+     */
+    private void requestAiMove() {
+        CompletableFuture<Move> future = aiPlayer.getMoveAsync(board);
+        pendingAiMove = future;
+        future.whenComplete((aiMove, error) -> SwingUtilities.invokeLater(() -> {
+            // 悔棋或重新开始后，旧的思考结果作废(被取消的思考也在这里返回)
+            if (pendingAiMove != future) {
+                return;
+            }
+            pendingAiMove = null;
+            if (error != null) {
+                handleAiError(error);
+                return;
+            }
+            applyAiMove(aiMove);
+        }));
+    }
+    
+    private void applyAiMove(Move aiMove) {
+        board.placeStone(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
+        // 记录AI移动
+        moveHistory.push(aiMove);
+        appendHistory(moveHistory.size(), aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
+        undoButton.setEnabled(true);
+        placeStoneUI(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
+        
+        // 播放落子音效
+        if (soundEnabled) {
+            soundManager.playPlaceSound();
+        }
+        
+        // 检查AI是否获胜
+        if (board.checkWin(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone())) {
+            statusLabel.setText("游戏结束: " + aiPlayer.getName() + "获胜!");
+            gameOver = true;
+            saveRecord(GameRecordFormat.resultOf(aiPlayer.getStone()));
+            if (soundEnabled) {
+                soundManager.playWinSound();
+            }
+            highlightWinningLine(aiMove.getRow(), aiMove.getCol(), aiPlayer.getStone());
+            return;
+        }
+        
+        // 检查平局
+        if (board.isFull()) {
+            statusLabel.setText("游戏结束: 平局!");
+            gameOver = true;
+            saveRecord(GameRecordFormat.RESULT_DRAW);
+            return;
+        }
+        
+        // 切换回玩家回合
+        switchPlayer();
+        statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
+    }
+    
+    /**
+     * AI思考失败(引擎异常或线程池拒绝)时提示错误，回合仍属于AI，玩家可以点击棋盘重试或悔棋
+     */
+    private void handleAiError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return;
+        }
+        System.err.println("AI思考出错: " + cause);
+        aiFailed = true;
+        statusLabel.setText("AI思考出错: " + cause.getMessage() + "，点击棋盘重试或悔棋");
+    }
+    
+    /**
+     * 取消AI正在进行的思考，已经完成但还没回到EDT的结果也会被丢弃
+     */
+    private void cancelAiMove() {
+        CompletableFuture<Move> future = pendingAiMove;
+        pendingAiMove = null;
+        if (future != null) {
+            future.cancel(true);
         }
     }
     
     private void placeStoneUI(int row, int col, Stone stone) {
-        CellButton cell = cellButtons[row][col];
-        cell.setStone(stone);
-        cell.repaint(); // 重绘单元格以显示棋子
+        boardCanvas.setStone(row, col, stone); // 只重绘这一格
     }
     
     private void highlightWinningLine(int row, int col, Stone stone) {
@@ -342,11 +387,7 @@ public class GobangSwingGUI extends JFrame {
         
         if (winningPositions != null) {
             for (int[] pos : winningPositions) {
-                CellButton cell = cellButtons[pos[0]][pos[1]];
-                if (cell != null) {
-                    cell.setHighlighted(true);
-                    cell.repaint(); // 重绘单元格以显示高亮效果
-                }
+                boardCanvas.setHighlighted(pos[0], pos[1], true);
             }
         }
     }
@@ -361,29 +402,31 @@ public class GobangSwingGUI extends JFrame {
             soundManager.playButtonClickSound();
         }
         
-        // 撤销AI的最后一步
-        if (!moveHistory.isEmpty()) {
-            Move aiMove = moveHistory.pop();
-            board.getGrid()[aiMove.getRow()][aiMove.getCol()] = Stone.EMPTY;
-            cellButtons[aiMove.getRow()][aiMove.getCol()].setStone(Stone.EMPTY);
-            cellButtons[aiMove.getRow()][aiMove.getCol()].setHighlighted(false);
-            cellButtons[aiMove.getRow()][aiMove.getCol()].repaint();
+        // AI还在思考时先取消，它的结果不会再落到棋盘上
+        cancelAiMove();
+        
+        // 悔棋后后台思考的局面不再出现，停止后台搜索
+        ((AIPlayer) aiPlayer).stopPondering();
+        
+        // 按棋盘上最后一步的颜色决定撤销几步(只在EDT上读写，不依赖AI思考的状态)：
+        // 最后一步是AI的就先撤销它，再撤销玩家的一步
+        if (lastMoveStone() == aiPlayer.getStone()) {
+            undoLastMove();
+        }
+        if (lastMoveStone() == humanPlayer.getStone()) {
+            undoLastMove();
         }
         
-        // 撤销玩家的最后一步
-        if (!moveHistory.isEmpty()) {
-            Move playerMove = moveHistory.pop();
-            board.getGrid()[playerMove.getRow()][playerMove.getCol()] = Stone.EMPTY;
-            cellButtons[playerMove.getRow()][playerMove.getCol()].setStone(Stone.EMPTY);
-            cellButtons[playerMove.getRow()][playerMove.getCol()].setHighlighted(false);
-            cellButtons[playerMove.getRow()][playerMove.getCol()].repaint();
-            
-            // 如果游戏已经结束，撤销后重新开始
-            if (gameOver) {
-                gameOver = false;
-                statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
-            }
+        // 悔棋后总是轮到玩家，游戏已经结束时重新开始，去掉获胜连线的高亮
+        currentPlayer = humanPlayer;
+        aiFailed = false;
+        if (gameOver) {
+            gameOver = false;
+            clearHighlights();
         }
+        statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
+        
+        refreshHistory();
         
         // 如果历史记录为空，禁用悔棋按钮
         if (moveHistory.isEmpty()) {
@@ -391,6 +434,64 @@ public class GobangSwingGUI extends JFrame {
         }
     }
     
+    private Stone lastMoveStone() {
+        if (moveHistory.isEmpty()) {
+            return Stone.EMPTY;
+        }
+        Move move = moveHistory.peek();
+        return board.getStone(move.getRow(), move.getCol());
+    }
+    
+    private void undoLastMove() {
+        Move move = moveHistory.pop();
+        board.removeStone(move.getRow(), move.getCol());
+        boardCanvas.setStone(move.getRow(), move.getCol(), Stone.EMPTY);
+    }
+    
+    private void appendHistory(int number, int row, int col, Stone stone) {
+        historyArea.append(String.format("%3d. %s [%d, %d]%n", number, stone, row, col));
+    }
+    
+    /**
+     * 悔棋后按剩余的着法重建历史记录
+     */
+    private void refreshHistory() {
+        historyArea.setText("");
+        for (int i = 0; i < moveHistory.size(); i++) {
+            Move move = moveHistory.get(i);
+            appendHistory(i + 1, move.getRow(), move.getCol(), i % 2 == 0 ? Stone.BLACK : Stone.WHITE);
+        }
+    }
+    
+    /**
+     * 把当前对局追加到棋谱文件，这一局已经写过时覆盖上次写入的记录，保存失败不影响游戏
+     */
+    private void saveRecord(int result) {
+        int[] cells = new int[moveHistory.size()];
+        for (int i = 0; i < cells.length; i++) {
+            Move move = moveHistory.get(i);
+            cells[i] = move.getRow() * BOARD_SIZE + move.getCol();
+        }
+        try {
+            if (recordOffset >= 0 && Files.exists(RECORD_FILE)) {
+                // 截回到写入这一局之前，长度为0时 append 会重新写文件头
+                try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.WRITE)) {
+                    channel.truncate(recordOffset);
+                }
+            } else {
+                recordOffset = Files.exists(RECORD_FILE) ? Files.size(RECORD_FILE) : 0;
+            }
+        } catch (IOException e) {
+            System.err.println("保存棋谱失败: " + e.getMessage());
+            return;
+        }
+        try (GameRecordWriter writer = GameRecordWriter.append(RECORD_FILE)) {
+            writer.writeGame(BOARD_SIZE, cells, cells.length, result);
+        } catch (IOException e) {
+            System.err.println("保存棋谱失败: " + e.getMessage());
+        }
+    }
+    
     private void toggleSound() {
         soundEnabled = !soundEnabled;
         soundButton.setText("音效: " + (soundEnabled ? "开" : "关"));
@@ -411,18 +512,30 @@ public class GobangSwingGUI extends JFrame {
             soundManager.playButtonClickSound();
         }
         
+        cancelAiMove();
+        // 没下完就重新开始的对局也保存下来，结果记为未结束
+        if (!gameOver && !moveHistory.isEmpty()) {
+            saveRecord(GameRecordFormat.RESULT_UNFINISHED);
+        }
+        recordOffset = -1;
+        moveHistory.clear();
+        historyArea.setText("");
         board.clear();
+        ((AIPlayer) aiPlayer).newGame();
         gameOver = false;
         currentPlayer = humanPlayer;
+        aiFailed = false;
         statusLabel.setText("当前玩家: " + currentPlayer.getName() + "(" + currentPlayer.getStone() + ")");
         undoButton.setEnabled(false);
         
-        // 清除所有棋子
+        // 清除所有棋子，只重绘有棋子或高亮的格子
+        boardCanvas.clear();
+    }
+    
+    private void clearHighlights() {
         for (int i = 0; i < BOARD_SIZE; i++) {
             for (int j = 0; j < BOARD_SIZE; j++) {
-                cellButtons[i][j].setStone(Stone.EMPTY);
-                cellButtons[i][j].setHighlighted(false);
-                cellButtons[i][j].repaint();
+                boardCanvas.setHighlighted(i, j, false);
             }
         }
     }
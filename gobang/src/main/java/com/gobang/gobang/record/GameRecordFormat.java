@@ -0,0 +1,44 @@
+package com.gobang.gobang.record;
+
+import com.gobang.gobang.Stone;
+
+/**
+ * 二进制棋谱格式
+ *
+ * 文件头5字节：魔数 "GBRC" 和版本号，之后是任意多局棋，每局：
+ *   开始标记(1字节) 棋盘大小(1字节) 着法... 结束标记0(1字节) 结果(1字节)
+ * 着法按落子顺序(黑先)记录格子编号加1：棋盘不超过15路时每步1字节，更大的棋盘用 LEB128 变长整数。
+ * 着法边下边追加，程序中途退出时最后一局没有结束标记，读取时按未结束处理。
+ */
+public final class GameRecordFormat {
+    public static final int RESULT_UNFINISHED = 0;
+    public static final int RESULT_BLACK_WIN = 1;
+    public static final int RESULT_WHITE_WIN = 2;
+    public static final int RESULT_DRAW = 3;
+
+    static final byte[] MAGIC = {'G', 'B', 'R', 'C'};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = MAGIC.length + 1;
+    static final int GAME_MARK = 0xA5;
+    static final int END_MARK = 0;
+
+    private GameRecordFormat() {
+    }
+
+    /**
+     * 格子编号加1后是否总能放进1字节
+     */
+    static boolean isCompact(int size) {
+        return size * size < 0x100;
+    }
+
+    /**
+     * 胜方对应的结果，winner 为 null 或 EMPTY 表示平局
+     */
+    public static int resultOf(Stone winner) {
+        if (winner == Stone.BLACK) {
+            return RESULT_BLACK_WIN;
+        }
+        return winner == Stone.WHITE ? RESULT_WHITE_WIN : RESULT_DRAW;
+    }
+}
@@ -0,0 +1,165 @@
+package com.gobang.gobang.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 棋谱流式读取器 - 每次 next() 读入一局，着法存放在复用的缓冲区中，
+ * 顺序扫描大量对局时不为每局分配对象
+ *
+ * 用法:
+ *   try (GameRecordReader reader = GameRecordReader.open(path)) {
+ *       while (reader.next()) { ... reader.getMove(i) ... }
+ *   }
+ */
+public class GameRecordReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private int size;
+    private int[] moves = new int[256];
+    private int moveCount;
+    private int result;
+    private long gameCount;
+
+    public GameRecordReader(InputStream in) throws IOException {
+        this.in = in;
+        for (byte expected : GameRecordFormat.MAGIC) {
+            if (read() != (expected & 0xFF)) {
+                throw new IOException("不是棋谱文件");
+            }
+        }
+        int version = read();
+        if (version != GameRecordFormat.VERSION) {
+            throw new IOException("不支持的棋谱版本: " + version);
+        }
+    }
+
+    public static GameRecordReader open(Path path) throws IOException {
+        return new GameRecordReader(Files.newInputStream(path));
+    }
+
+    /**
+     * 读入下一局
+     *
+     * @return 已经没有对局时返回 false
+     * @throws IOException 数据损坏或读取失败
+     */
+    public boolean next() throws IOException {
+        int mark = read();
+        if (mark < 0) {
+            return false;
+        }
+        if (mark != GameRecordFormat.GAME_MARK) {
+            throw new IOException("第 " + (gameCount + 1) + " 局缺少开始标记");
+        }
+        size = read();
+        if (size <= 0) {
+            throw new IOException("第 " + (gameCount + 1) + " 局棋盘大小无效");
+        }
+        boolean compact = GameRecordFormat.isCompact(size);
+        int cellCount = size * size;
+        moveCount = 0;
+        result = GameRecordFormat.RESULT_UNFINISHED;
+        gameCount++;
+
+        while (true) {
+            int value = compact ? read() : readVarint();
+            if (value < 0) {
+                // 文件在对局中途结束：最后一局还没下完
+                return true;
+            }
+            if (value == GameRecordFormat.END_MARK) {
+                result = Math.max(0, read());
+                return true;
+            }
+            if (value > cellCount) {
+                throw new IOException("第 " + gameCount + " 局着法超出棋盘: " + (value - 1));
+            }
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moves.length * 2);
+            }
+            moves[moveCount++] = value - 1;
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * 第 index 步的格子编号(row * size + col)，偶数步为黑棋
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index];
+    }
+
+    /**
+     * 把当前对局的着法复制到 target，返回步数
+     */
+    public int getMoves(int[] target) {
+        System.arraycopy(moves, 0, target, 0, moveCount);
+        return moveCount;
+    }
+
+    /**
+     * GameRecordFormat 中的 RESULT_* 之一
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * 已经读入的对局数
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = read();
+            if (b < 0) {
+                return -1;
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数过长");
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+}
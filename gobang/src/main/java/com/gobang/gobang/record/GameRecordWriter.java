@@ -0,0 +1,140 @@
+package com.gobang.gobang.record;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 棋谱写入器 - 边下边追加着法，也可以一次写入整局
+ * 不是线程安全的，每个文件同时只应有一个写入器
+ */
+public class GameRecordWriter implements Closeable, Flushable {
+    private final OutputStream out;
+    private boolean inGame;
+    private boolean compact;
+    private int maxCell;
+
+    /**
+     * 写入新的棋谱流，先写文件头
+     */
+    public GameRecordWriter(OutputStream out) throws IOException {
+        this(out, true);
+    }
+
+    private GameRecordWriter(OutputStream out, boolean writeHeader) throws IOException {
+        this.out = out;
+        if (writeHeader) {
+            out.write(GameRecordFormat.MAGIC);
+            out.write(GameRecordFormat.VERSION);
+        }
+    }
+
+    /**
+     * 追加到棋谱文件末尾，文件不存在或为空时先写文件头
+     * 上次写入时中途退出留下的未结束对局会先补上结束标记
+     */
+    public static GameRecordWriter append(Path path) throws IOException {
+        long length = Files.exists(path) ? Files.size(path) : 0;
+        boolean unterminated = length > GameRecordFormat.HEADER_LENGTH && !endsWithResult(path, length);
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        GameRecordWriter writer = new GameRecordWriter(out, length == 0);
+        if (unterminated) {
+            out.write(GameRecordFormat.END_MARK);
+            out.write(GameRecordFormat.RESULT_UNFINISHED);
+        }
+        return writer;
+    }
+
+    /**
+     * 完整结束的对局以 [0, 结果] 两个字节结尾；着法、棋盘大小和开始标记都不会是0，不会误判
+     */
+    private static boolean endsWithResult(Path path, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            file.seek(length - 2);
+            int end = file.read();
+            int result = file.read();
+            return end == GameRecordFormat.END_MARK && result >= 0 && result <= GameRecordFormat.RESULT_DRAW;
+        }
+    }
+
+    public void beginGame(int size) throws IOException {
+        if (inGame) {
+            throw new IllegalStateException("上一局还没有结束");
+        }
+        if (size < 1 || size > 0xFF) {
+            throw new IllegalArgumentException("棋盘大小超出范围: " + size);
+        }
+        out.write(GameRecordFormat.GAME_MARK);
+        out.write(size);
+        inGame = true;
+        compact = GameRecordFormat.isCompact(size);
+        maxCell = size * size - 1;
+    }
+
+    /**
+     * 追加一步，cell 为 row * size + col
+     */
+    public void writeMove(int cell) throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException("对局还没有开始");
+        }
+        if (cell < 0 || cell > maxCell) {
+            throw new IllegalArgumentException("格子编号超出范围: " + cell);
+        }
+        int value = cell + 1;
+        if (compact) {
+            out.write(value);
+            return;
+        }
+        while (value >= 0x80) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * 结束当前对局
+     *
+     * @param result GameRecordFormat 中的 RESULT_* 之一
+     */
+    public void endGame(int result) throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException("对局还没有开始");
+        }
+        out.write(GameRecordFormat.END_MARK);
+        out.write(result);
+        inGame = false;
+    }
+
+    /**
+     * 一次写入整局棋
+     */
+    public void writeGame(int size, int[] cells, int count, int result) throws IOException {
+        beginGame(size);
+        for (int i = 0; i < count; i++) {
+            writeMove(cells[i]);
+        }
+        endGame(result);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * 关闭时不会自动结束当前对局，读取时它被当作未结束的对局
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.gobang.gobang.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 按对局轮转的公平调度器 - 固定数量的工作线程，每局一个任务队列
+ *
+ * 有任务的对局排成一个环，工作线程每次从环头取一局、执行它的一个任务，该局还有任务时再排到环尾，
+ * 因此任务多的对局不会挤占其他对局；同一局的任务依次执行，不会并发。
+ * 排队任务总数有上限，超出时提交被拒绝。
+ * 每个任务带着它的结果 future，关闭时还在排队的任务不再执行，它们的 future 以 RejectedExecutionException 结束。
+ */
+final class FairScheduler implements AutoCloseable {
+    private final int maxQueued;
+    private final Thread[] workers;
+    
+    // 以下字段都由 this 保护
+    private final Map<Object, ArrayDeque<Task>> queues = new HashMap<>();
+    private final ArrayDeque<Object> ready = new ArrayDeque<>();
+    private final Set<Object> running = new HashSet<>();
+    private int queued;
+    private boolean closed;
+    
+    /**
+     * 排队中的任务和它的结果
+     */
+    private static final class Task {
+        final Runnable action;
+        final CompletableFuture<?> future;
+        
+        Task(Runnable action, CompletableFuture<?> future) {
+            this.action = action;
+            this.future = future;
+        }
+    }
+    
+    FairScheduler(int threads, int maxQueued, String name) {
+        this.maxQueued = maxQueued;
+        this.workers = new Thread[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::work, name + "-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+    
+    /**
+     * 提交 owner 的一个任务，task 负责完成 future；任务没有执行时 future 由调度器以异常结束
+     *
+     * @throws RejectedExecutionException 调度器已关闭或排队任务已满
+     */
+    synchronized void submit(Object owner, Runnable action, CompletableFuture<?> future) {
+        if (closed) {
+            throw new RejectedExecutionException("调度器已关闭");
+        }
+        if (queued >= maxQueued) {
+            throw new RejectedExecutionException("排队任务已满: " + queued);
+        }
+        ArrayDeque<Task> queue = queues.computeIfAbsent(owner, key -> new ArrayDeque<>());
+        if (queue.isEmpty() && !running.contains(owner)) {
+            ready.addLast(owner);
+        }
+        queue.addLast(new Task(action, future));
+        queued++;
+        notify();
+    }
+    
+    synchronized int getQueued() {
+        return queued;
+    }
+    
+    /**
+     * 停止接受任务，排队中的任务不再执行，它们的 future 以 RejectedExecutionException 结束；
+     * 正在执行的任务会执行完
+     */
+    @Override
+    public void close() {
+        List<Task> dropped = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (ArrayDeque<Task> queue : queues.values()) {
+                dropped.addAll(queue);
+            }
+            queues.clear();
+            ready.clear();
+            queued = 0;
+            notifyAll();
+        }
+        
+        // 在锁外结束 future，它的回调可能要取得对局的锁，而提交任务时对局的锁在调度器的锁之前取得
+        RejectedExecutionException rejected = new RejectedExecutionException("调度器已关闭");
+        for (Task task : dropped) {
+            task.future.completeExceptionally(rejected);
+        }
+    }
+    
+    private void work() {
+        while (true) {
+            Object owner;
+            Task task;
+            synchronized (this) {
+                while (ready.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                owner = ready.pollFirst();
+                task = queues.get(owner).pollFirst();
+                running.add(owner);
+                queued--;
+            }
+            
+            try {
+                task.action.run();
+            } catch (Throwable e) {
+                // 任务自己负责报告异常，这里只保证工作线程不退出、结果不会一直等待
+                task.future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    running.remove(owner);
+                    ArrayDeque<Task> queue = queues.get(owner);
+                    if (queue != null && !queue.isEmpty()) {
+                        ready.addLast(owner);
+                        notify();
+                    } else {
+                        queues.remove(owner);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.gobang.gobang.service;
+
+import com.gobang.gobang.AIPlayer;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.Cancellation;
+import com.gobang.gobang.Move;
+import com.gobang.gobang.Stone;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面的多局对弈服务 - 同时托管多局人机对局
+ *
+ * 每局有自己的棋盘、着法记录和AI(较小的置换表，不开后台思考)，AI思考在固定数量的工作线程上
+ * 按对局轮转执行，每步的思考时间由难度决定，各局分到的CPU时间大致相同。
+ * 长时间没有访问的对局会被自动清除。
+ *
+ * 每局常驻内存约为置换表 2^(ttBucketBits+5) 字节、评估缓存 2^(ttBucketBits+4) 字节，
+ * 加几十KB的棋盘和记录，见 estimatedBytesPerGame；
+ * 搜索过程中的临时内存只和工作线程数有关，与对局数无关。
+ */
+public class GameService implements AutoCloseable {
+    // 默认每局置换表 2^14 个桶，共 512KB，评估缓存 256KB
+    public static final int DEFAULT_TT_BUCKET_BITS = 14;
+    
+    // 棋盘、着法记录和AI对象本身的内存上限估计
+    private static final long SESSION_OVERHEAD_BYTES = 32 * 1024;
+    
+    // 每个工作线程平均可以排队的思考请求数
+    private static final int QUEUE_PER_THREAD = 64;
+    
+    private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private final FairScheduler scheduler;
+    private final ScheduledExecutorService evictor;
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+    private final int ttBucketBits;
+    private final int boardSize;
+    
+    /**
+     * @param threads 用于AI思考的工作线程数
+     * @param maxSessions 同时存在的对局数上限
+     * @param idleTimeoutMillis 对局超过这么长时间没有访问就被清除
+     */
+    public GameService(int threads, int maxSessions, long idleTimeoutMillis) {
+        this(threads, maxSessions, idleTimeoutMillis, DEFAULT_TT_BUCKET_BITS, 15);
+    }
+    
+    public GameService(int threads, int maxSessions, long idleTimeoutMillis, int ttBucketBits, int boardSize) {
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.ttBucketBits = ttBucketBits;
+        this.boardSize = boardSize;
+        this.scheduler = new FairScheduler(threads, Math.max(1, threads) * QUEUE_PER_THREAD, "gobang-service");
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gobang-service-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 4);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 开始一局新对局，AI执黑时需要再调用 requestAiMove 让AI先走
+     *
+     * @param difficulty AI难度，1 到 3
+     * @throws IllegalStateException 对局数已达上限且没有可以清除的空闲对局
+     */
+    public GameSession createGame(Stone humanStone, int difficulty) {
+        if (humanStone != Stone.BLACK && humanStone != Stone.WHITE) {
+            throw new IllegalArgumentException("玩家必须执黑或执白");
+        }
+        if (sessions.size() >= maxSessions && evictIdle() == 0 && sessions.size() >= maxSessions) {
+            throw new IllegalStateException("对局数已达上限: " + maxSessions);
+        }
+        Stone aiStone = humanStone == Stone.BLACK ? Stone.WHITE : Stone.BLACK;
+        AIPlayer engine = new AIPlayer("AI", aiStone, ttBucketBits);
+        engine.setDifficulty(difficulty);
+        engine.setVerbose(false); // 多局同时进行，不打印每步的思考信息
+        String id = UUID.randomUUID().toString();
+        GameSession session = new GameSession(id, humanStone, boardSize, engine);
+        sessions.put(id, session);
+        return session;
+    }
+    
+    /**
+     * 取得对局并刷新它的访问时间，不存在或已被清除时返回 null
+     */
+    public GameSession getGame(String id) {
+        GameSession session = sessions.get(id);
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+    
+    public Collection<GameSession> getGames() {
+        return sessions.values();
+    }
+    
+    public int getGameCount() {
+        return sessions.size();
+    }
+    
+    /**
+     * 玩家落子，返回AI应着的 future
+     * 玩家这一步已经结束对局时 future 立即完成，应着为 null
+     *
+     * @throws IllegalArgumentException 对局不存在或落子位置非法
+     * @throws IllegalStateException 对局已结束、AI正在思考或还没轮到玩家
+     */
+    public CompletableFuture<MoveReply> play(String id, int row, int col) {
+        GameSession session = require(id);
+        synchronized (session) {
+            checkCanMove(session, session.getHumanStone());
+            if (!session.play(new Move(row, col), session.getHumanStone())) {
+                throw new IllegalArgumentException("非法落子: [" + row + ", " + col + "]");
+            }
+            if (session.over) {
+                return CompletableFuture.completedFuture(new MoveReply(null, true, session.winner));
+            }
+            return scheduleAiMove(session);
+        }
+    }
+    
+    /**
+     * 轮到AI走棋时(例如AI执黑的第一步)让AI走一步
+     */
+    public CompletableFuture<MoveReply> requestAiMove(String id) {
+        GameSession session = require(id);
+        synchronized (session) {
+            checkCanMove(session, session.getAiStone());
+            return scheduleAiMove(session);
+        }
+    }
+    
+    /**
+     * 结束并移除对局，正在进行的思考被取消
+     */
+    public boolean closeGame(String id) {
+        GameSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            session.closed = true;
+            if (session.thinking != null) {
+                session.thinking.cancel();
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 清除超时未访问、且AI没有在思考的对局
+     *
+     * @return 清除的对局数
+     */
+    public int evictIdle() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (GameSession session : sessions.values()) {
+            if (now - session.getLastAccessMillis() > idleTimeoutMillis && !session.isAiThinking()
+                && closeGame(session.getId())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+    
+    /**
+     * 每局常驻内存的估计值(字节)
+     */
+    public long estimatedBytesPerGame() {
+        return (1L << (ttBucketBits + 5)) + (1L << (ttBucketBits + 4)) + SESSION_OVERHEAD_BYTES;
+    }
+    
+    /**
+     * 等待执行的思考请求数
+     */
+    public int getQueuedMoves() {
+        return scheduler.getQueued();
+    }
+    
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        for (String id : sessions.keySet()) {
+            closeGame(id);
+        }
+        scheduler.close();
+    }
+    
+    private GameSession require(String id) {
+        GameSession session = getGame(id);
+        if (session == null) {
+            throw new IllegalArgumentException("对局不存在: " + id);
+        }
+        return session;
+    }
+    
+    private static void checkCanMove(GameSession session, Stone stone) {
+        if (session.over) {
+            throw new IllegalStateException("对局已结束");
+        }
+        if (session.thinking != null) {
+            throw new IllegalStateException("AI正在思考");
+        }
+        if (session.turn != stone) {
+            throw new IllegalStateException("还没有轮到" + stone);
+        }
+    }
+    
+    /**
+     * 把AI的一步交给调度器，调用方需持有 session 的锁
+     * 思考在棋盘副本上进行，结果回来时对局已被关闭或思考已被取消则丢弃
+     */
+    private CompletableFuture<MoveReply> scheduleAiMove(GameSession session) {
+        Cancellation cancellation = new Cancellation();
+        Board snapshot = session.board.copy(); // 与对局共用数组，对局落子时才复制
+        CompletableFuture<MoveReply> future = new CompletableFuture<>();
+        session.thinking = cancellation;
+        
+        Runnable task = () -> {
+            if (cancellation.isCancelled()) {
+                future.cancel(false);
+                return;
+            }
+            try {
+                Move move = session.engine.getMove(snapshot, cancellation);
+                synchronized (session) {
+                    if (session.closed || session.thinking != cancellation) {
+                        future.cancel(false);
+                        return;
+                    }
+                    session.thinking = null;
+                    session.play(move, session.getAiStone());
+                    session.touch();
+                    future.complete(new MoveReply(move, session.over, session.winner));
+                }
+            } catch (Throwable e) {
+                // 包括搜索中的 StackOverflowError 等错误，调用方不会一直等待
+                future.completeExceptionally(e);
+            }
+        };
+        
+        // 调用方取消 future 或思考失败时，对局回到可以重新请求AI走棋的状态
+        future.whenComplete((reply, error) -> {
+            if (error != null) {
+                cancellation.cancel();
+                synchronized (session) {
+                    if (session.thinking == cancellation) {
+                        session.thinking = null;
+                    }
+                }
+            }
+        });
+        
+        try {
+            scheduler.submit(session, task, future);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,28 @@
+package com.gobang.gobang.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 在 Spring 应用中注册 GameService，参数可在 application.properties 中覆盖：
+ * gobang.service.threads、gobang.service.max-games、gobang.service.idle-timeout-ms、gobang.service.tt-bucket-bits
+ * 搜索指标由 SearchMetricsBinder 提供，有 MeterRegistry 时(如引入 actuator)自动注册
+ */
+@Configuration
+public class GameServiceConfiguration {
+    
+    @Bean(destroyMethod = "close")
+    public GameService gameService(
+            @Value("${gobang.service.threads:4}") int threads,
+            @Value("${gobang.service.max-games:500}") int maxGames,
+            @Value("${gobang.service.idle-timeout-ms:600000}") long idleTimeoutMillis,
+            @Value("${gobang.service.tt-bucket-bits:" + GameService.DEFAULT_TT_BUCKET_BITS + "}") int ttBucketBits) {
+        return new GameService(threads, maxGames, idleTimeoutMillis, ttBucketBits, 15);
+    }
+    
+    @Bean(destroyMethod = "close")
+    public SearchMetricsBinder searchMetricsBinder() {
+        return new SearchMetricsBinder();
+    }
+}
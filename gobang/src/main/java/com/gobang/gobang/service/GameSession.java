@@ -0,0 +1,114 @@
+package com.gobang.gobang.service;
+
+import com.gobang.gobang.AIPlayer;
+import com.gobang.gobang.Board;
+import com.gobang.gobang.BoardSnapshot;
+import com.gobang.gobang.Cancellation;
+import com.gobang.gobang.Move;
+import com.gobang.gobang.Stone;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一局人机对局 - 棋盘、着法记录和这一局专用的AI
+ * 状态只在持有该对象的锁时修改，对外的读取方法返回副本
+ */
+public class GameSession {
+    private final String id;
+    private final Stone humanStone;
+    final Board board;
+    final ArrayDeque<Move> history = new ArrayDeque<>();
+    final AIPlayer engine;
+    
+    Stone turn = Stone.BLACK;
+    Stone winner; // 平局或未结束时为 null
+    boolean over;
+    boolean closed;
+    
+    // AI正在思考时的取消令牌，没有思考时为 null
+    Cancellation thinking;
+    
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+    
+    GameSession(String id, Stone humanStone, int boardSize, AIPlayer engine) {
+        this.id = id;
+        this.humanStone = humanStone;
+        this.board = new Board(boardSize);
+        this.engine = engine;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public Stone getHumanStone() {
+        return humanStone;
+    }
+    
+    public Stone getAiStone() {
+        return engine.getStone();
+    }
+    
+    public synchronized Stone getTurn() {
+        return turn;
+    }
+    
+    public synchronized boolean isOver() {
+        return over;
+    }
+    
+    /**
+     * 胜方，平局或未结束时为 null
+     */
+    public synchronized Stone getWinner() {
+        return winner;
+    }
+    
+    public synchronized boolean isAiThinking() {
+        return thinking != null;
+    }
+    
+    /**
+     * 按顺序排列的全部着法(黑先)
+     */
+    public synchronized List<Move> getMoves() {
+        return new ArrayList<>(history);
+    }
+    
+    /**
+     * 当前棋盘的快照
+     */
+    public synchronized BoardSnapshot getBoard() {
+        return board.snapshot();
+    }
+    
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+    
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * 在棋盘上落子并记录，判断胜负后交换走棋方，调用方需持有锁
+     *
+     * @return 落子是否合法
+     */
+    boolean play(Move move, Stone stone) {
+        if (over || stone != turn || !board.placeStone(move.getRow(), move.getCol(), stone)) {
+            return false;
+        }
+        history.addLast(move);
+        if (board.checkWin(move.getRow(), move.getCol(), stone)) {
+            winner = stone;
+            over = true;
+        } else if (board.isFull()) {
+            over = true;
+        }
+        turn = stone == Stone.BLACK ? Stone.WHITE : Stone.BLACK;
+        return true;
+    }
+}
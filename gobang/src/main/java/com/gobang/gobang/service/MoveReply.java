@@ -0,0 +1,37 @@
+package com.gobang.gobang.service;
+
+import com.gobang.gobang.Move;
+import com.gobang.gobang.Stone;
+
+/**
+ * 一次落子请求的结果：AI的应着以及对局是否结束
+ */
+public final class MoveReply {
+    private final Move aiMove;
+    private final boolean over;
+    private final Stone winner;
+    
+    MoveReply(Move aiMove, boolean over, Stone winner) {
+        this.aiMove = aiMove;
+        this.over = over;
+        this.winner = winner;
+    }
+    
+    /**
+     * AI的应着，玩家这一步已经结束对局时为 null
+     */
+    public Move getAiMove() {
+        return aiMove;
+    }
+    
+    public boolean isOver() {
+        return over;
+    }
+    
+    /**
+     * 胜方，平局或未结束时为 null
+     */
+    public Stone getWinner() {
+        return winner;
+    }
+}
@@ -0,0 +1,96 @@
+package com.gobang.gobang.service;
+
+import com.gobang.gobang.EngineMetrics;
+import com.gobang.gobang.SearchStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 把 AI 每步的搜索统计注册到 Micrometer：
+ * 节点数、评估次数、置换表和评估缓存的查询/命中、按着法序号的剪枝次数、搜索深度，
+ * 以及按着法来源(搜索、威胁搜索、开局库、后台思考)区分的每步耗时直方图
+ * 可以绑定到多个注册表(如同时有 Prometheus 和 JMX)，每个注册表各有一个监听器
+ */
+public class SearchMetricsBinder implements MeterBinder, AutoCloseable {
+    private static final String PREFIX = "gobang.search.";
+    
+    private final List<Consumer<SearchStatistics>> listeners = new ArrayList<>();
+    
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        Counter nodes = Counter.builder(PREFIX + "nodes")
+            .description("搜索的节点数").register(registry);
+        Counter evaluations = Counter.builder(PREFIX + "evaluations")
+            .description("叶节点静态评估次数").register(registry);
+        Counter ttProbes = Counter.builder(PREFIX + "tt.probes")
+            .description("置换表查询次数").register(registry);
+        Counter ttHits = Counter.builder(PREFIX + "tt.hits")
+            .description("置换表命中次数").register(registry);
+        Counter cacheProbes = Counter.builder(PREFIX + "eval.cache.probes")
+            .description("评估缓存查询次数").register(registry);
+        Counter cacheHits = Counter.builder(PREFIX + "eval.cache.hits")
+            .description("评估缓存命中次数").register(registry);
+        
+        // 剪枝按产生剪枝的着法序号打标签，1 的比例越高着法排序越好
+        Counter[] cutoffs = new Counter[SearchStatistics.CUTOFF_INDEX_BUCKETS];
+        for (int i = 0; i < cutoffs.length; i++) {
+            String index = i == cutoffs.length - 1 ? (i + 1) + "+" : String.valueOf(i + 1);
+            cutoffs[i] = Counter.builder(PREFIX + "cutoffs")
+                .description("Beta剪枝次数").tag("move.index", index).register(registry);
+        }
+        
+        DistributionSummary depth = DistributionSummary.builder(PREFIX + "depth")
+            .description("完整搜完的迭代深度").register(registry);
+        DistributionSummary maxPly = DistributionSummary.builder(PREFIX + "max.ply")
+            .description("搜索到达的最大层数").register(registry);
+        
+        Map<SearchStatistics.Source, Timer> latency = new EnumMap<>(SearchStatistics.Source.class);
+        for (SearchStatistics.Source source : SearchStatistics.Source.values()) {
+            latency.put(source, Timer.builder(PREFIX + "latency")
+                .description("AI 每步的思考时间")
+                .tag("source", source.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+        
+        Consumer<SearchStatistics> listener = statistics -> {
+            nodes.increment(statistics.getNodes());
+            evaluations.increment(statistics.getEvaluations());
+            ttProbes.increment(statistics.getTtProbes());
+            ttHits.increment(statistics.getTtHits());
+            cacheProbes.increment(statistics.getCacheProbes());
+            cacheHits.increment(statistics.getCacheHits());
+            for (int i = 0; i < cutoffs.length; i++) {
+                cutoffs[i].increment(statistics.getCutoffs(i));
+            }
+            if (statistics.getSource() == SearchStatistics.Source.SEARCH) {
+                depth.record(statistics.getCompletedDepth());
+                maxPly.record(statistics.getMaxPly());
+            }
+            latency.get(statistics.getSource()).record(statistics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        };
+        listeners.add(listener);
+        EngineMetrics.addListener(listener);
+    }
+    
+    /**
+     * 所有注册表都停止接收搜索统计
+     */
+    @Override
+    public synchronized void close() {
+        for (Consumer<SearchStatistics> listener : listeners) {
+            EngineMetrics.removeListener(listener);
+        }
+        listeners.clear();
+    }
+}